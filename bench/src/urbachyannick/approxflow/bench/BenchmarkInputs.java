@@ -0,0 +1,68 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.tree.ClassNode;
+import urbachyannick.approxflow.*;
+import urbachyannick.approxflow.codetransformation.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Inputs shared by the benchmarks. Synthetic inputs are generated by default; recorded inputs can be passed as system
+ * properties (forked benchmark JVMs inherit the options of the host JVM):
+ * <ul>
+ *     <li>approxflow.bench.cnf: a CNF file written by JBMC, e.g. intermediate/jbmc-output.cnf kept with
+ *     --keep-intermediate; used instead of the synthetic CNF file</li>
+ *     <li>approxflow.bench.root: the approxflow project directory, containing res and test; defaults to the working
+ *     directory</li>
+ * </ul>
+ */
+public class BenchmarkInputs {
+    public static Optional<Path> getRecordedCnf() {
+        return Optional.ofNullable(System.getProperty("approxflow.bench.cnf")).map(Paths::get);
+    }
+
+    public static Path getProgramRoot() {
+        return Paths.get(System.getProperty("approxflow.bench.root", ".")).toAbsolutePath();
+    }
+
+    public static IOCallbacks createIOCallbacks() throws IOException {
+        return DirectoryIOCallbacks.inNewDirectory(getProgramRoot(), Paths.get(System.getProperty("java.io.tmpdir")), "approxflow-bench-", false);
+    }
+
+    /**
+     * @param program the directory containing the sources, relative to the project directory (e.g. test/Loops)
+     * @param ioCallbacks for the temporary files of the compiler
+     * @return the compiled classes
+     */
+    public static List<ClassNode> compile(String program, IOCallbacks ioCallbacks) throws CompilationError {
+        return new Javac().compile(getProgramRoot().resolve(program), ioCallbacks).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the signatures of all variable lines of the CNF file, as they are passed to Signature.parse
+     */
+    public static List<String> readSignatures(Path cnfFile) throws IOException {
+        try (Stream<String> lines = Files.lines(cnfFile)) {
+            return lines
+                    .filter(l -> l.startsWith("c ") && !l.startsWith("c ind ") && !l.startsWith("c max "))
+                    .map(l -> {
+                        int end = l.indexOf(' ', 2);
+                        return end < 0 ? l.substring(2) : l.substring(2, end);
+                    })
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory))
+            return;
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.delete(p);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package urbachyannick.approxflow.bench;
+
+import org.openjdk.jmh.annotations.*;
+import urbachyannick.approxflow.cnf.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.*;
+
+/**
+ * Reading and writing of DIMACS and binary CNF files. Uses the recorded CNF file if approxflow.bench.cnf is set, in which case the
+ * clauses parameter is ignored.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CnfIOBenchmark {
+    @Param({"100000", "1000000"})
+    public int clauses;
+
+    private Path directory;
+    private Path input;
+    private Path output;
+    private Path binary;
+    private MappedProblem problem;
+    private MaxModelCountingProblem countingProblem;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("approxflow-bench-");
+        output = directory.resolve("output.cnf");
+        input = BenchmarkInputs.getRecordedCnf().orElse(directory.resolve("input.cnf"));
+
+        if (!BenchmarkInputs.getRecordedCnf().isPresent())
+            IO.write(SyntheticCnf.generate(clauses, clauses / 100, 4), input);
+
+        problem = IO.readMappedProblem(input);
+        binary = directory.resolve("input.acnf");
+        IO.writeBinary(problem, binary);
+        countingProblem = new MaxModelCountingProblem(problem, new urbachyannick.approxflow.cnf.Scope(1, 2, 3), new urbachyannick.approxflow.cnf.Scope(4, 5, 6));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkInputs.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public MappedProblem readMappedProblem() throws IOException {
+        return IO.readMappedProblem(input);
+    }
+
+    @Benchmark
+    public MappedProblem readMappedProblemParseAllVariables() throws IOException {
+        return IO.readMappedProblem(input, false);
+    }
+
+    // split into chunks regardless of the size of the file; read() only does that for large files
+    @Benchmark
+    public MappedProblem readMappedProblemInParallel() throws IOException {
+        return new DimacsReader(input).read(ForkJoinPool.commonPool(), 1 << 20).getMappedProblem();
+    }
+
+    // decodes the clauses; the variable table stays in the mapped file
+    @Benchmark
+    public MappedProblem readBinaryMappedProblem() throws IOException {
+        return IO.readBinaryMappedProblem(binary);
+    }
+
+    // always serializes the clauses and variable table
+    @Benchmark
+    public void writeMappedProblem() throws IOException {
+        IO.write(problem, output);
+    }
+
+    @Benchmark
+    public void writeBinaryMappedProblem() throws IOException {
+        IO.writeBinary(problem, output);
+    }
+
+    // copies the input file, which is unchanged since reading
+    @Benchmark
+    public void writeMaxModelCountingProblem() throws IOException {
+        IO.write(countingProblem, output);
+    }
+}
@@ -0,0 +1,44 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+import urbachyannick.approxflow.IOCallbacks;
+import urbachyannick.approxflow.codetransformation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Inlining on the compiled classes of test programs. The program parameter is relative to the project directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InlineMethodsBenchmark {
+    @Param({"test/Inline", "test/InlineWithVirtualCallResolution"})
+    public String program;
+
+    private IOCallbacks ioCallbacks;
+    private List<ClassNode> classes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, CompilationError {
+        ioCallbacks = BenchmarkInputs.createIOCallbacks();
+        classes = BenchmarkInputs.compile(program, ioCallbacks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ioCallbacks.close();
+    }
+
+    @Benchmark
+    public List<ClassNode> inlineMethods() throws InvalidTransformationException {
+        return new InlineMethods().apply(classes.stream()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,51 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.tree.*;
+import org.openjdk.jmh.annotations.*;
+import urbachyannick.approxflow.cnf.*;
+import urbachyannick.approxflow.codetransformation.ClassHierarchy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the SAT variables of static fields in a synthetic variable table (see {@link SyntheticCnf}); pairs is
+ * cascaded through the array and all objects in it.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JavaVarToCnfVarBenchmark {
+    @Param({"100", "1000"})
+    public int objects;
+
+    @Param({"4"})
+    public int generations;
+
+    private ClassHierarchy classes;
+    private ClassNode program;
+    private VariableTable variableTable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        classes = new ClassHierarchy(SyntheticCnf.getClasses());
+        program = classes.getClasses().get(0);
+        variableTable = SyntheticCnf.generate(1, objects, generations).getVariableTable();
+    }
+
+    private FieldNode field(String name) {
+        return program.fields.stream().filter(f -> f.name.equals(name)).findFirst().get();
+    }
+
+    @Benchmark
+    public int[] primitiveField() {
+        return JavaVarToCnfVar.variablesForStaticField(classes, variableTable, program, field("value"), 0).toArray();
+    }
+
+    @Benchmark
+    public int[] cascadeArrayOfObjects() {
+        return JavaVarToCnfVar.variablesForStaticField(classes, variableTable, program, field("pairs"), 0).toArray();
+    }
+}
@@ -0,0 +1,63 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+import soot.*;
+import soot.toolkits.graph.BriefBlockGraph;
+import urbachyannick.approxflow.IOCallbacks;
+import urbachyannick.approxflow.codetransformation.InvalidTransformationException;
+import urbachyannick.approxflow.soot.*;
+import urbachyannick.approxflow.trees.Tree;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.*;
+
+/**
+ * Finding loops and replacing them on a generated method with many loops (see {@link SyntheticLoops}).
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoopBenchmark {
+    @Param({"100", "400"})
+    public int loops;
+
+    @Param({"1", "3"})
+    public int nesting;
+
+    private IOCallbacks ioCallbacks;
+    private ClassNode class_;
+    private Body body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ioCallbacks = BenchmarkInputs.createIOCallbacks();
+        class_ = SyntheticLoops.generate(loops, nesting);
+
+        AsmSootConverter.initSoot(ioCallbacks);
+        SootClass sootClass = AsmSootConverter.toSoot(Stream.of(class_)).findFirst().get();
+        body = sootClass.getMethodByName(SyntheticLoops.methodName).retrieveActiveBody();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ioCallbacks.close();
+    }
+
+    @Benchmark
+    public List<Tree<Loop>> findLoops() {
+        return LoopFinder.findLoops(new BriefBlockGraph(body));
+    }
+
+    @Benchmark
+    public List<ClassNode> loopReplacer() throws InvalidTransformationException {
+        // discards the classes of the previous invocation
+        AsmSootConverter.initSoot(ioCallbacks);
+        return new LoopReplacer(true).apply(Stream.of(class_)).collect(Collectors.toList());
+    }
+}
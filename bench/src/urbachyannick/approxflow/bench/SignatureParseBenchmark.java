@@ -0,0 +1,61 @@
+package urbachyannick.approxflow.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import urbachyannick.approxflow.cnf.IO;
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the signatures of the variable lines of a CNF file, either recorded (approxflow.bench.cnf) or synthetic.
+ * parseBaseline is a copy of the parser as it was before {@link SignatureParser} (in the baseline package), which tries
+ * each kind of signature in turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SignatureParseBenchmark {
+    @Param({"1000"})
+    public int objects;
+
+    private List<String> signatures;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (BenchmarkInputs.getRecordedCnf().isPresent()) {
+            signatures = BenchmarkInputs.readSignatures(BenchmarkInputs.getRecordedCnf().get());
+            return;
+        }
+
+        Path file = Files.createTempFile("approxflow-bench-", ".cnf");
+
+        try {
+            IO.write(SyntheticCnf.generate(1, objects, 4), file);
+            signatures = BenchmarkInputs.readSignatures(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        // one parser per file, like the readers
+        SignatureParser parser = new SignatureParser();
+
+        for (String s : signatures)
+            blackhole.consume(parser.parse(s));
+    }
+
+    @Benchmark
+    public void parseBaseline(Blackhole blackhole) {
+        for (String s : signatures)
+            blackhole.consume(urbachyannick.approxflow.bench.baseline.Signature.parse(s));
+    }
+}
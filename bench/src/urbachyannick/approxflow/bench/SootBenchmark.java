@@ -0,0 +1,57 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.openjdk.jmh.annotations.*;
+import urbachyannick.approxflow.IOCallbacks;
+import urbachyannick.approxflow.codetransformation.*;
+import urbachyannick.approxflow.soot.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversion between ASM and Soot and the Soot based loop replacement on the compiled classes of test programs. The
+ * classes of the previous invocation are discarded from the scene before each invocation, as they are before each
+ * analysis; the library classes stay resolved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SootBenchmark {
+    @Param({"test/Loops", "test/BlackboxMultiplePaths"})
+    public String program;
+
+    private IOCallbacks ioCallbacks;
+    private List<ClassNode> classes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, CompilationError {
+        ioCallbacks = BenchmarkInputs.createIOCallbacks();
+        classes = BenchmarkInputs.compile(program, ioCallbacks);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetSoot() {
+        AsmSootConverter.initSoot(ioCallbacks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ioCallbacks.close();
+    }
+
+    @Benchmark
+    public List<ClassNode> roundTrip() {
+        return AsmSootConverter.toAsm(AsmSootConverter.toSoot(classes.stream())).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ClassNode> loopReplacer() throws InvalidTransformationException {
+        return new LoopReplacer(true).apply(classes.stream()).collect(Collectors.toList());
+    }
+}
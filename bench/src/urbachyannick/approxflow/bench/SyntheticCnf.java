@@ -0,0 +1,132 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+import urbachyannick.approxflow.cnf.*;
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Generates random CNF problems with a variable table shaped like the output of JBMC for the program
+ *
+ * <pre>
+ * class Program { static int value; static Pair[] pairs; public static void main(String[] args) { ... } }
+ * class Pair { int a; int b; }
+ * </pre>
+ *
+ * where pairs contains objectCount objects. Every variable has several generations, and there are as many unreferenced
+ * arrays and objects as referenced ones, plus locals of main and guards.
+ */
+public class SyntheticCnf {
+    private static final ClassName programClass = new ClassName("Program");
+
+    private static final long arrayAddress = 1;
+    private static final long firstObjectAddress = 2;
+    private static final long unreferencedAddresses = 1000000;
+
+    private final Random random = new Random(42);
+    private final int variableCount;
+    private final int generations;
+    private final List<VariableMapping> mappings = new ArrayList<>();
+
+    private SyntheticCnf(int variableCount, int generations) {
+        this.variableCount = variableCount;
+        this.generations = generations;
+    }
+
+    public static MappedProblem generate(int clauseCount, int objectCount, int generations) {
+        SyntheticCnf generator = new SyntheticCnf(Math.max(clauseCount / 4, 1000), generations);
+        return new MappedProblem(generator.generateProblem(clauseCount), generator.generateVariableTable(objectCount));
+    }
+
+    /**
+     * @return the classes Program and Pair, as far as the variable table is concerned
+     */
+    public static List<ClassNode> getClasses() {
+        ClassNode program = new ClassNode(Opcodes.ASM5);
+        program.name = "Program";
+        program.superName = "java/lang/Object";
+        program.fields.add(new FieldNode(Opcodes.ASM5, Opcodes.ACC_STATIC | Opcodes.ACC_PUBLIC, "value", "I", null, null));
+        program.fields.add(new FieldNode(Opcodes.ASM5, Opcodes.ACC_STATIC | Opcodes.ACC_PUBLIC, "pairs", "[LPair;", null, null));
+
+        ClassNode pair = new ClassNode(Opcodes.ASM5);
+        pair.name = "Pair";
+        pair.superName = "java/lang/Object";
+        pair.fields.add(new FieldNode(Opcodes.ASM5, Opcodes.ACC_PUBLIC, "a", "I", null, null));
+        pair.fields.add(new FieldNode(Opcodes.ASM5, Opcodes.ACC_PUBLIC, "b", "I", null, null));
+
+        return Arrays.asList(program, pair);
+    }
+
+    private Problem generateProblem(int clauseCount) {
+        int[] clauseOffsets = new int[clauseCount + 1];
+        IntArrayBuilder literals = new IntArrayBuilder(clauseCount * 3);
+
+        for (int i = 0; i < clauseCount; ++i) {
+            int length = 1 + random.nextInt(4);
+
+            for (int j = 0; j < length; ++j)
+                literals.add(randomLiteral());
+
+            clauseOffsets[i + 1] = literals.size();
+        }
+
+        return new Problem(variableCount, literals.toArray(), clauseOffsets);
+    }
+
+    private VariableTable generateVariableTable(int objectCount) {
+        TypeSpecifier[] mainParameters = { new ArrayType(new ClassName("java", "lang", "String")) };
+
+        for (int g = 0; g < generations; ++g) {
+            addVariable(new JavaSignature(programClass, new FieldAccess("value"), indices(g)));
+            addAddress(new JavaSignature(programClass, new FieldAccess("pairs"), indices(g)), g == generations - 1 ? arrayAddress : 0);
+
+            for (int l = 0; l < 10; ++l)
+                addVariable(new JavaSignature(programClass, new FunctionCall("main", mainParameters, PrimitiveType.VOID, new NamedLocal("local" + l)), new VariableIndices(0, 1, g)));
+        }
+
+        for (int i = 0; i < objectCount; ++i) {
+            for (int g = 0; g < generations; ++g) {
+                addAddress(new DynamicArraySignature(arrayAddress, i, indices(g)), firstObjectAddress + i + 1);
+                addVariable(new DynamicObjectSignature(firstObjectAddress + i, "a", indices(g)));
+                addVariable(new DynamicObjectSignature(firstObjectAddress + i, "b", indices(g)));
+
+                addVariable(new DynamicArraySignature(unreferencedAddresses, i, indices(g)));
+                addVariable(new DynamicObjectSignature(unreferencedAddresses + 1 + i, "a", indices(g)));
+                addVariable(new UnparsedSignature("goto_symex::\\guard#" + (i * generations + g)));
+            }
+        }
+
+        Collections.shuffle(mappings, random);
+        return new EagerVariableTable(mappings.stream());
+    }
+
+    private static VariableIndices indices(int generation) {
+        return new VariableIndices(-1, -1, generation);
+    }
+
+    private int randomLiteral() {
+        int variable = 1 + random.nextInt(variableCount);
+        return random.nextBoolean() ? variable : -variable;
+    }
+
+    private void addVariable(Signature signature) {
+        mappings.add(new VariableMapping(signature, Stream.generate(() -> (MappingValue) new Literal(randomLiteral())).limit(32)));
+    }
+
+    // inverse of JavaVarToCnfVar.parseAddressFromTrivialLiterals
+    private void addAddress(Signature signature, long address) {
+        MappingValue[] values = new MappingValue[64];
+
+        for (int word = 0; word < 4; ++word) {
+            for (int bit = 0; bit < 16; ++bit) {
+                boolean set = ((address >>> (16 * (3 - word)) >>> bit) & 1) != 0;
+                values[word * 16 + bit] = set ? TrivialMappingValue.TRUE : TrivialMappingValue.FALSE;
+            }
+        }
+
+        mappings.add(new VariableMapping(signature, values));
+    }
+}
@@ -0,0 +1,76 @@
+package urbachyannick.approxflow.bench;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Generates a class with a single method containing many loops, like a method after {@link
+ * urbachyannick.approxflow.codetransformation.UnrollLoops} duplicated loop bodies:
+ *
+ * <pre>
+ * public class Loops {
+ *     public static int f(int n) {
+ *         int s = 0;
+ *         for (int i0 = 0; i0 < n; ++i0) { s += i0; for (int i1 = 0; i1 < n; ++i1) { s += i1; ... } }
+ *         ... (loopCount times)
+ *         return s;
+ *     }
+ * }
+ * </pre>
+ *
+ * where each of the loopCount outermost loops contains nesting - 1 nested loops.
+ */
+public class SyntheticLoops {
+    public static final String className = "Loops";
+    public static final String methodName = "f";
+
+    public static ClassNode generate(int loopCount, int nesting) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, className, null, "java/lang/Object", null);
+
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, methodName, "(I)I", null, null);
+        method.visitCode();
+        method.visitInsn(Opcodes.ICONST_0);
+        method.visitVarInsn(Opcodes.ISTORE, 1);
+
+        for (int i = 0; i < loopCount; ++i)
+            generateLoop(method, 0, nesting);
+
+        method.visitVarInsn(Opcodes.ILOAD, 1);
+        method.visitInsn(Opcodes.IRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+
+        ClassNode class_ = new ClassNode(Opcodes.ASM5);
+        new ClassReader(writer.toByteArray()).accept(class_, ClassReader.EXPAND_FRAMES);
+        return class_;
+    }
+
+    // laid out like javac does, with the condition after the body
+    private static void generateLoop(MethodVisitor method, int depth, int nesting) {
+        int counter = 2 + depth;
+        Label body = new Label();
+        Label condition = new Label();
+
+        method.visitInsn(Opcodes.ICONST_0);
+        method.visitVarInsn(Opcodes.ISTORE, counter);
+        method.visitJumpInsn(Opcodes.GOTO, condition);
+
+        method.visitLabel(body);
+        method.visitVarInsn(Opcodes.ILOAD, 1);
+        method.visitVarInsn(Opcodes.ILOAD, counter);
+        method.visitInsn(Opcodes.IADD);
+        method.visitVarInsn(Opcodes.ISTORE, 1);
+
+        if (depth + 1 < nesting)
+            generateLoop(method, depth + 1, nesting);
+
+        method.visitIincInsn(counter, 1);
+
+        method.visitLabel(condition);
+        method.visitVarInsn(Opcodes.ILOAD, counter);
+        method.visitVarInsn(Opcodes.ILOAD, 0);
+        method.visitJumpInsn(Opcodes.IF_ICMPLT, body);
+    }
+}
@@ -0,0 +1,30 @@
+package urbachyannick.approxflow.bench.baseline;
+
+/**
+ * The signature parser as it was before {@link urbachyannick.approxflow.javasignatures.SignatureParser}, copied
+ * unchanged except for the package, as the baseline for {@link urbachyannick.approxflow.bench.SignatureParseBenchmark}.
+ */
+public abstract class Signature {
+    public static Signature parse(String input) {
+        Signature signature = JavaSignature.tryParse(input);
+
+        if (signature == null)
+            signature = DynamicArraySignature.tryParse(input);
+
+        if (signature == null)
+            signature = DynamicObjectSignature.tryParse(input);
+
+        if (signature == null)
+            signature = new UnparsedSignature(input);
+
+        return signature;
+    }
+
+    public abstract boolean matches(Signature signature);
+
+    /**
+     * @return this signature without thread, instance and generation numbers; two signatures match exactly if their
+     * stripped signatures are equal
+     */
+    public abstract Signature stripIndices();
+}
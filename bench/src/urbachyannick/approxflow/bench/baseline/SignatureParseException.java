@@ -0,0 +1,7 @@
+package urbachyannick.approxflow.bench.baseline;
+
+public class SignatureParseException extends RuntimeException {
+    public SignatureParseException(String message, int offset) {
+        super(message + " (at " + offset + ")");
+    }
+}
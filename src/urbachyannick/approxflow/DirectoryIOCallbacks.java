@@ -0,0 +1,63 @@
+package urbachyannick.approxflow;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * IOCallbacks placing all temporaries directly in one directory, e.g. the intermediate directory next to the analyzed
+ * sources or a directory on a RAM disk.
+ */
+public class DirectoryIOCallbacks extends IOCallbacks {
+    private final Path directory;
+    private final boolean keepTemporaries;
+    private final boolean ownsDirectory;
+
+    /**
+     * @param programRoot the root directory of approxflow-java
+     * @param directory the directory for the temporaries
+     * @param keepTemporaries whether to keep the temporaries when closing
+     * @param ownsDirectory whether the directory itself was created for this instance and should be deleted when closing
+     *                      (only if empty)
+     */
+    public DirectoryIOCallbacks(Path programRoot, Path directory, boolean keepTemporaries, boolean ownsDirectory) {
+        super(programRoot);
+        this.directory = directory;
+        this.keepTemporaries = keepTemporaries;
+        this.ownsDirectory = ownsDirectory;
+    }
+
+    /**
+     * Creates IOCallbacks for a fresh uniquely named directory below a root directory, e.g. /dev/shm.
+     */
+    public static DirectoryIOCallbacks inNewDirectory(Path programRoot, Path root, String prefix, boolean keepTemporaries) throws IOException {
+        Files.createDirectories(root);
+        return new DirectoryIOCallbacks(programRoot, Files.createTempDirectory(root, prefix), keepTemporaries, true);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    protected Path createTemporaryFileImpl(String name) {
+        return directory.resolve(name);
+    }
+
+    @Override
+    protected Path createTemporaryDirectoryImpl(String name) {
+        return directory.resolve(name);
+    }
+
+    @Override
+    protected boolean shouldDeleteTemporary(String name) {
+        return !keepTemporaries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+
+        if (ownsDirectory && !keepTemporaries)
+            deleteIfEmpty(directory);
+    }
+}
@@ -18,10 +18,16 @@ public abstract class IOCallbacks implements Closeable {
 
     private final List<Temporary> temporaries;
     private final Path programRoot;
+    private final Metrics metrics;
 
     public IOCallbacks(Path programRoot) {
-        temporaries = new ArrayList<>();
+        this(programRoot, new Metrics());
+    }
+
+    protected IOCallbacks(Path programRoot, Metrics metrics) {
+        temporaries = Collections.synchronizedList(new ArrayList<>());
         this.programRoot = programRoot;
+        this.metrics = metrics;
     }
 
     protected abstract Path createTemporaryFileImpl(String name);
@@ -33,6 +39,8 @@ public abstract class IOCallbacks implements Closeable {
 
         if (Files.exists(p))
             delete(p);
+        else
+            Files.createDirectories(p.getParent());
 
         temporaries.add(new Temporary(name, p));
         return p;
@@ -49,6 +57,48 @@ public abstract class IOCallbacks implements Closeable {
         return p;
     }
 
+    /**
+     * Creates a child workspace in a subdirectory of this one, e.g. for one of several tasks running concurrently. The
+     * child has its own temporaries and should be closed when the task is done. Its directory is a temporary of this
+     * instance, so it is also cleaned up if the child is never closed. The child records into the same metrics.
+     * @param name the name of the subdirectory, e.g. "stage-3"
+     * @return the child workspace
+     * @throws IOException if the subdirectory can not be created
+     */
+    public IOCallbacks fork(String name) throws IOException {
+        IOCallbacks parent = this;
+        Path directory = createTemporaryDirectory(name);
+
+        return new IOCallbacks(programRoot, metrics.forContext(name)) {
+            @Override
+            protected Path createTemporaryFileImpl(String childName) {
+                return directory.resolve(childName);
+            }
+
+            @Override
+            protected Path createTemporaryDirectoryImpl(String childName) {
+                return directory.resolve(childName);
+            }
+
+            @Override
+            protected boolean shouldDeleteTemporary(String childName) {
+                return parent.shouldDeleteTemporary(name + "/" + childName);
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+
+                if (parent.shouldDeleteTemporary(name))
+                    deleteIfEmpty(directory);
+            }
+        };
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     public Path findInProgramDirectory(Path path) {
         return programRoot.resolve(path).toAbsolutePath();
     }
@@ -67,13 +117,23 @@ public abstract class IOCallbacks implements Closeable {
 
     @Override
     public void close() throws IOException {
-        for (Temporary t : temporaries) {
-            if (Files.exists(t.path) && shouldDeleteTemporary(t.name)) {
-                delete(t.path);
+        synchronized (temporaries) {
+            for (Temporary t : temporaries) {
+                if (Files.exists(t.path) && shouldDeleteTemporary(t.name)) {
+                    delete(t.path);
+                }
             }
         }
     }
 
+    protected static void deleteIfEmpty(Path directory) {
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // not empty, keep it
+        }
+    }
+
     private void delete(Path path) throws IOException {
         Files.walk(path)
                 .sorted(Comparator.reverseOrder()) // to delete bottom to top
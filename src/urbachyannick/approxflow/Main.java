@@ -5,7 +5,8 @@ import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import picocli.CommandLine;
 import urbachyannick.approxflow.blackboxes.BlackboxAnalyzer;
-import urbachyannick.approxflow.cnf.Jbmc;
+import urbachyannick.approxflow.cache.DiskCache;
+import urbachyannick.approxflow.cnf.*;
 import urbachyannick.approxflow.codetransformation.Compiler;
 import urbachyannick.approxflow.codetransformation.*;
 import urbachyannick.approxflow.informationflow.*;
@@ -17,9 +18,12 @@ import javax.xml.xpath.*;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.UnaryOperator;
 import java.util.stream.*;
 
 import static picocli.CommandLine.*;
+import static picocli.CommandLine.Model.*;
 import static urbachyannick.approxflow.MiscUtil.throwableToString;
 
 /**
@@ -44,8 +48,19 @@ public class Main implements Runnable {
 
         @Option(names = {"--tests"}, description = "run tests", paramLabel = "testroot", arity = "0..1", defaultValue = "___not_test_mode___", fallbackValue = "test")
         private Path testroot;
+
+        @Option(names = {"--convert-cnf"}, description = "convert a CNF file from DIMACS to the binary format of the cache, or from the binary format to DIMACS, and exit", paramLabel = "file", arity = "2")
+        private List<Path> convertCnf;
+
+        // runs a single test (the second path) of a test root (the first) in a worker process started by the parallel
+        // test runner
+        @Option(names = {"--test-worker"}, hidden = true, paramLabel = "testroot testdir", arity = "2")
+        private List<Path> testWorker;
     }
 
+    @Spec
+    CommandSpec spec;
+
     @Option(names = {"--keep-intermediate"}, description = "keep intermediate results")
     private boolean keepIntermediate;
 
@@ -79,6 +94,30 @@ public class Main implements Runnable {
     @Option(names = {"--tolerance"}, description = "tolerance for the model counters (epsilon)", defaultValue = "0.8")
     public double tolerance;
 
+    @Option(names = {"--temp-root"}, description = "directory in which to create temporary files instead of the intermediate directory next to the sources, e.g. a RAM disk like /dev/shm", paramLabel = "path")
+    private Path tempRoot;
+
+    @Option(names = {"--jobs"}, description = "maximum number of JBMC and model counter runs (or tests, in test mode) to execute concurrently", paramLabel = "n", defaultValue = "1")
+    private int jobs;
+
+    @Option(names = {"--cache-dir"}, description = "directory for cached results; defaults to cache in the program directory", paramLabel = "path")
+    private Path cacheDirectory;
+
+    @Option(names = {"--cache-size"}, description = "maximum size of the cache in megabytes", paramLabel = "mb", defaultValue = "1024")
+    private long cacheSize;
+
+    @Option(names = {"--cache"}, description = "cache JBMC output and model counts across runs; the counts are randomized approximations, so a cached count is returned again instead of a new sample")
+    private boolean useCache;
+
+    @Option(names = {"--incremental"}, description = "reuse the flows of programs (and stages of the blackbox analysis) whose code reachable from the main method is unchanged since an earlier run; implies --cache")
+    private boolean incremental;
+
+    @Option(names = {"--parse-all-variables"}, description = "parse all variable lines of the JBMC output instead of only those that are looked up (for debugging)")
+    private boolean parseAllVariables;
+
+    @Option(names = {"--metrics"}, description = "write timings of the analysis phases and CNF sizes to a JSON file (in test mode, to a directory, with one <test>.json per test, named by its path below the test root)", paramLabel = "file")
+    private Path metricsFile;
+
     // endregion
 
 
@@ -89,47 +128,100 @@ public class Main implements Runnable {
      */
     @Override
     public void run() {
+        if (operationMode.convertCnf != null) {
+            convertCnf(operationMode.convertCnf.get(0), operationMode.convertCnf.get(1));
+            return;
+        }
+
         Stream<Compiler> compilers = Stream.of(
                 new BytecodeLoader(Stream.of(Paths.get("intermediate"))),
                 new Kotlinc(),
                 eclipse ? new EclipseJavaCompiler() : new Javac()
         );
 
-        FlowAnalyzer analyzer = new BlackboxAnalyzer(
-                new Jbmc(partialLoops, unwind),
-                new CounterPicker(
-                        new MaxCount(maxcountK, tolerance, confidence, confidence),
-                        new ApproxMC(tolerance, confidence)
-                ),
+        DiskCache cache = createCache();
+
+        MaxModelCounter counter = new CounterPicker(
+                new MaxCount(maxcountK, tolerance, confidence, confidence),
+                new ApproxMC(tolerance, confidence)
+        );
+
+        CnfGenerator cnfGenerator = new Jbmc(partialLoops, unwind, !parseAllVariables);
+
+        CachingMaxModelCounter cachingCounter = null;
+        CachingCnfGenerator cachingCnfGenerator = null;
+
+        if (cache != null) {
+            counter = cachingCounter = new CachingMaxModelCounter(counter, cache);
+            cnfGenerator = cachingCnfGenerator = new CachingCnfGenerator(cnfGenerator, cache, !parseAllVariables);
+        }
+
+        String configuration = "inline " + defaultInlineRecursionDepth + ", unroll " + defaultUnrollIterations + ", blackbox loops " + defaultBlackboxLoops + ", " + cnfGenerator + ", " + counter;
+        IncrementalAnalyzer.ToolsHash toolsHash = toolsHash(cachingCnfGenerator, cachingCounter);
+        UnaryOperator<FlowAnalyzer> stageDecorator = incremental ? a -> new IncrementalAnalyzer(a, cache, "stage", configuration, toolsHash) : UnaryOperator.identity();
+
+        FlowAnalyzer blackboxAnalyzer = new BlackboxAnalyzer(
+                cnfGenerator,
+                counter,
                 defaultInlineRecursionDepth,
                 defaultUnrollIterations,
-                defaultBlackboxLoops
+                defaultBlackboxLoops,
+                jobs,
+                stageDecorator
         );
 
-        if (!operationMode.testroot.equals(Paths.get("___not_test_mode___")))
-            runTests(compilers, analyzer, operationMode.testroot);
-        else
-            runRegular(compilers, analyzer);
+        try (FlowAnalyzer analyzer = incremental ? new IncrementalAnalyzer(blackboxAnalyzer, cache, "flow", configuration, toolsHash) : blackboxAnalyzer) {
+            if (operationMode.testWorker != null)
+                runTestWorker(compilers, analyzer, operationMode.testWorker.get(0), operationMode.testWorker.get(1));
+            else if (!operationMode.testroot.equals(Paths.get("___not_test_mode___")))
+                runTests(compilers, analyzer, operationMode.testroot);
+            else
+                runRegular(compilers, analyzer);
+        }
+
+        if (cache != null)
+            cache.getStatistics().forEach((namespace, statistics) -> System.out.println("Cache (" + namespace + "): " + statistics));
     }
 
+    private static void convertCnf(Path input, Path output) {
+        try {
+            if (BinaryCnfReader.isBinaryCnf(input))
+                urbachyannick.approxflow.cnf.IO.convertToDimacs(input, output);
+            else
+                urbachyannick.approxflow.cnf.IO.convertToBinary(input, output);
+        } catch (IOException e) {
+            fail("Can not convert " + input + " to " + output, e);
+        }
+    }
 
-    public void runRegular(Stream<Compiler> compilers, FlowAnalyzer analyzer) {
-        IOCallbacks ioCallbacks = new IOCallbacks(programRoot) {
-            @Override
-            public Path createTemporaryFileImpl(String name) {
-                return operationMode.classpath.resolve(Paths.get("intermediate", name));
-            }
+    // the stored flows depend on the same tool files as the cached CNFs and counts (--incremental implies the cache)
+    private static IncrementalAnalyzer.ToolsHash toolsHash(CachingCnfGenerator cnfGenerator, CachingMaxModelCounter counter) {
+        return c -> cnfGenerator.toolsHash(c) + ", " + counter.toolsHash(c);
+    }
 
-            @Override
-            public Path createTemporaryDirectoryImpl(String name) {
-                return operationMode.classpath.resolve(Paths.get("intermediate", name));
-            }
+    private DiskCache createCache() {
+        if (!useCache && !incremental)
+            return null;
 
-            @Override
-            protected boolean shouldDeleteTemporary(String name) {
-                return !keepIntermediate;
-            }
-        };
+        Path directory = cacheDirectory != null ? cacheDirectory : programRoot.resolve("cache");
+
+        try {
+            return new DiskCache(directory, cacheSize * 1024 * 1024);
+        } catch (IOException e) {
+            fail("Can not open cache directory " + directory, e);
+            return null;
+        }
+    }
+
+
+    public void runRegular(Stream<Compiler> compilers, FlowAnalyzer analyzer) {
+        IOCallbacks ioCallbacks = null;
+
+        try {
+            ioCallbacks = createIOCallbacks(operationMode.classpath);
+        } catch (Fail f) {
+            fail(f);
+        }
 
         AsmSootConverter.initSoot(ioCallbacks);
 
@@ -138,10 +230,13 @@ public class Main implements Runnable {
             Stream.Builder<ClassNode> classesBuilder = Stream.builder();
 
             while (i.hasNext())
-                i.next().compile(operationMode.classpath, c).forEach(classesBuilder);
+                compile(i.next(), operationMode.classpath, c).forEach(classesBuilder);
 
-            double informationFlow = analyzer.analyzeInformationFlow(classesBuilder.build(), c);
+            double informationFlow = c.getMetrics().time("analysis", "total", () -> analyzer.analyzeInformationFlow(classesBuilder.build(), c));
             System.out.println("Approximated flow is: " + informationFlow);
+
+            if (metricsFile != null)
+                writeMetrics(c.getMetrics(), metricsFile);
         } catch(Fail f) {
             fail(f);
         } catch (CompilationError e) {
@@ -161,47 +256,197 @@ public class Main implements Runnable {
         public Path testPath;
         public long compileTime = -1; // nanoseconds
         public long analyzeTime = -1; // nanoseconds
+
+        public long getTotalTime() {
+            return compileTime != -1 && analyzeTime != -1 ? compileTime + analyzeTime : 0;
+        }
     }
 
     private void runTests(Stream<Compiler> compilers, FlowAnalyzer analyzer, Path testRootArg) {
         List<Compiler> compilerList = compilers.collect(Collectors.toList());
+        List<Path> testDirectories = null;
+        Path testRoot = testRootArg.toAbsolutePath();
 
-        try {
-            Path testRoot = testRootArg.toAbsolutePath();
-
-            if (!Files.exists(testRoot))
-                testRoot = programRoot.resolve(testRootArg).toAbsolutePath();
+        if (!Files.exists(testRoot))
+            testRoot = programRoot.resolve(testRootArg).toAbsolutePath();
 
-            if (!Files.exists(testRoot))
-                fail("test root " + testRootArg.toString() + " not found");
+        if (!Files.exists(testRoot))
+            fail("test root " + testRootArg.toString() + " not found");
 
-            Files
+        try {
+            testDirectories = Files
                     .walk(testRoot)
                     .filter(t ->
                             Files.isDirectory(t) &&
                             Files.exists(t.resolve("config.xml"))
                     )
-                    .map(t -> runTest(t, compilerList.stream(), analyzer))
-                    .forEach(r -> {
-                        if (r.skipped)
-                            System.out.println("SKIPPED: " + r.testPath.getFileName());
-                        else {
-                            writeTestResult(r);
-                            System.out.println(
-                                    (r.success ? "SUCCESS: " : "FAIL:    ") +
-                                    r.testPath.getFileName() +
-                                    (r.compileTime != -1 && r.analyzeTime != -1 ? " (" + ((r.compileTime + r.analyzeTime) / 1000000 + "ms)") : "")
-                            );
-                        }
-                    });
+                    .collect(Collectors.toList());
 
         } catch (IOException e) {
             fail("Can not list test directories");
         }
 
+        long start = System.nanoTime();
+        List<TestResult> results;
+
+        if (jobs > 1) {
+            results = runTestsInWorkers(testRoot, testDirectories);
+        } else {
+            Path root = testRoot;
+
+            results = testDirectories.stream()
+                    .map(t -> {
+                        TestResult r = runTest(root, t, compilerList.stream(), analyzer);
+
+                        if (!r.skipped)
+                            writeTestResult(r);
+
+                        printTestResult(r);
+                        return r;
+                    })
+                    .collect(Collectors.toList());
+        }
+
+        long duration = System.nanoTime() - start;
+
+        System.out.println(String.format(
+                "%d tests: %d succeeded, %d failed, %d skipped (%dms in total, %dms per test, %dms elapsed)",
+                results.size(),
+                results.stream().filter(r -> !r.skipped && r.success).count(),
+                results.stream().filter(r -> !r.skipped && !r.success).count(),
+                results.stream().filter(r -> r.skipped).count(),
+                results.stream().mapToLong(TestResult::getTotalTime).sum() / 1000000,
+                (long) results.stream().filter(r -> r.getTotalTime() > 0).mapToLong(TestResult::getTotalTime).average().orElse(0) / 1000000,
+                duration / 1000000
+        ));
     }
 
-    private TestResult runTest(Path testDirectory, Stream<Compiler> compilers, FlowAnalyzer analyzer) {
+    private static void printTestResult(TestResult r) {
+        if (r.skipped)
+            System.out.println("SKIPPED: " + r.testPath.getFileName());
+        else {
+            System.out.println(
+                    (r.success ? "SUCCESS: " : "FAIL:    ") +
+                    r.testPath.getFileName() +
+                    (r.compileTime != -1 && r.analyzeTime != -1 ? " (" + ((r.compileTime + r.analyzeTime) / 1000000 + "ms)") : "")
+            );
+        }
+    }
+
+    // Runs each test in a separate JVM, because Soot keeps its state in a global singleton. Results are printed in the
+    // same order as in sequential mode, each as soon as it and all tests before it are done.
+    private List<TestResult> runTestsInWorkers(Path testRoot, List<Path> testDirectories) {
+        List<String> workerArguments = getWorkerArguments();
+        ExecutorService executor = Executors.newFixedThreadPool(jobs);
+        List<TestResult> results = new ArrayList<>();
+
+        try {
+            List<Future<TestResult>> futures = testDirectories.stream()
+                    .map(t -> executor.submit(() -> runTestInWorker(testRoot, t, workerArguments)))
+                    .collect(Collectors.toList());
+
+            for (Future<TestResult> future : futures) {
+                TestResult r = future.get();
+                printTestResult(r);
+                results.add(r);
+            }
+        } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+            fail("Failed to run tests in parallel", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    // the options given to this process, except for the operation mode and --jobs
+    private List<String> getWorkerArguments() {
+        List<String> arguments = new ArrayList<>();
+
+        arguments.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        arguments.add("-cp");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add(Main.class.getName());
+
+        for (OptionSpec option : spec.commandLine().getParseResult().matchedOptions()) {
+            if (option.longestName().equals("--tests") || option.longestName().equals("--jobs"))
+                continue;
+
+            if (option.arity().max() == 0) {
+                arguments.add(option.longestName());
+                continue;
+            }
+
+            for (String value : option.originalStringValues()) {
+                arguments.add(option.longestName());
+                arguments.add(value);
+            }
+        }
+
+        return arguments;
+    }
+
+    private static final String workerResultPrefix = "##approxflow-test-result ";
+
+    private TestResult runTestInWorker(Path testRoot, Path testDirectory, List<String> workerArguments) {
+        TestResult result = new TestResult();
+        result.testPath = testDirectory;
+
+        List<String> command = new ArrayList<>(workerArguments);
+        command.add("--test-worker");
+        command.add(testRoot.toString());
+        command.add(testDirectory.toString());
+
+        List<String> output;
+        Process process = null;
+
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                output = reader.lines().collect(Collectors.toList());
+            }
+
+            MiscUtil.waitForProcess(process); // kills the worker and sets the interrupt flag again if interrupted
+        } catch (IOException | InterruptedException e) {
+            if (process != null)
+                process.destroyForcibly(); // does nothing if the worker has exited
+
+            result.success = false;
+            result.message = "Failed to run test worker\n" + throwableToString(e);
+            writeTestResult(result);
+            return result;
+        }
+
+        Optional<String[]> status = output.stream()
+                .filter(l -> l.startsWith(workerResultPrefix))
+                .map(l -> l.substring(workerResultPrefix.length()).split(" "))
+                .findFirst();
+
+        if (!status.isPresent()) {
+            result.success = false;
+            result.message = "Test worker did not report a result\n" + String.join("\n", output);
+            writeTestResult(result);
+            return result;
+        }
+
+        result.skipped = status.get()[0].equals("SKIPPED");
+        result.success = status.get()[0].equals("SUCCESS");
+        result.compileTime = Long.parseLong(status.get()[1]);
+        result.analyzeTime = Long.parseLong(status.get()[2]);
+        return result;
+    }
+
+    private void runTestWorker(Stream<Compiler> compilers, FlowAnalyzer analyzer, Path testRoot, Path testDirectory) {
+        TestResult r = runTest(testRoot, testDirectory, compilers, analyzer);
+
+        if (!r.skipped)
+            writeTestResult(r);
+
+        System.out.println(workerResultPrefix + (r.skipped ? "SKIPPED" : r.success ? "SUCCESS" : "FAIL") + " " + r.compileTime + " " + r.analyzeTime);
+    }
+
+    private TestResult runTest(Path testRoot, Path testDirectory, Stream<Compiler> compilers, FlowAnalyzer analyzer) {
         Path configFile = testDirectory.resolve("config.xml");
 
         double minFlow;
@@ -233,22 +478,15 @@ public class Main implements Runnable {
             return result;
         }
 
-        IOCallbacks ioCallbacks = new IOCallbacks(programRoot) {
-            @Override
-            protected Path createTemporaryFileImpl(String name) {
-                return testDirectory.resolve(Paths.get("intermediate", name));
-            }
-
-            @Override
-            protected Path createTemporaryDirectoryImpl(String name) {
-                return testDirectory.resolve(Paths.get("intermediate", name));
-            }
+        IOCallbacks ioCallbacks;
 
-            @Override
-            protected boolean shouldDeleteTemporary(String name) {
-                return !keepIntermediate;
-            }
-        };
+        try {
+            ioCallbacks = createIOCallbacks(testDirectory);
+        } catch (Fail f) {
+            result.success = false;
+            result.message = f.getMessage();
+            return result;
+        }
 
         AsmSootConverter.initSoot(ioCallbacks);
 
@@ -260,13 +498,15 @@ public class Main implements Runnable {
             Stream.Builder<ClassNode> classesBuilder = Stream.builder();
 
             while (i.hasNext())
-                i.next().compile(testDirectory, c).forEach(classesBuilder);
+                compile(i.next(), testDirectory, c).forEach(classesBuilder);
 
 
             long compileDone = System.nanoTime();
             double informationFlow = analyzer.analyzeInformationFlow(classesBuilder.build(), c);
             long analysisDone = System.nanoTime();
 
+            c.getMetrics().recordTime("analysis", "total", analysisDone - compileDone);
+
             result.compileTime = compileDone - start;
             result.analyzeTime = analysisDone - compileDone;
 
@@ -288,6 +528,50 @@ public class Main implements Runnable {
             result.success = false;
             result.message = "Exception during analysis\n" + throwableToString(e);
             return result;
+        } finally {
+            if (metricsFile != null)
+                writeMetrics(ioCallbacks.getMetrics(), getTestMetricsFile(testRoot, testDirectory));
+        }
+    }
+
+    private static List<ClassNode> compile(Compiler compiler, Path sourceDirectory, IOCallbacks ioCallbacks) throws CompilationError {
+        return ioCallbacks.getMetrics().time("compile", compiler.getClass().getSimpleName(), () -> compiler.compile(sourceDirectory, ioCallbacks).collect(Collectors.toList()));
+    }
+
+    // in test mode, --metrics is a directory with a report per test, named by the path of the test below the test root,
+    // as the names of the test directories alone are not unique
+    private Path getTestMetricsFile(Path testRoot, Path testDirectory) {
+        Path relative = testRoot.relativize(testDirectory);
+
+        if (relative.toString().isEmpty())
+            relative = testDirectory.getFileName();
+
+        return metricsFile.resolve(relative + ".json");
+    }
+
+    private static void writeMetrics(Metrics metrics, Path path) {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+
+            if (parent != null)
+                Files.createDirectories(parent);
+
+            metrics.write(path);
+        } catch (IOException e) {
+            System.err.println("Warning: could not write metrics to " + path + ": " + e.getMessage());
+        }
+    }
+
+    // temporaries go to the intermediate directory next to the sources, or to a fresh directory below --temp-root
+    private IOCallbacks createIOCallbacks(Path sourceDirectory) {
+        if (tempRoot == null)
+            return new DirectoryIOCallbacks(programRoot, sourceDirectory.resolve("intermediate"), keepIntermediate, false);
+
+        try {
+            String prefix = "approxflow-" + sourceDirectory.toAbsolutePath().normalize().getFileName() + "-";
+            return DirectoryIOCallbacks.inNewDirectory(programRoot, tempRoot, prefix, keepIntermediate);
+        } catch (IOException e) {
+            throw new Fail("Can not create temporary directory in " + tempRoot, e);
         }
     }
 
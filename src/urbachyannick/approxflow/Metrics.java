@@ -0,0 +1,138 @@
+package urbachyannick.approxflow;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Collects timings and sizes of the phases of an analysis, to be written as JSON. Available through
+ * {@link IOCallbacks#getMetrics()}. Forked IOCallbacks share the entries of their parent, but tag them with their own
+ * context (e.g. "stage-3"), so concurrent stages can record into the same report.
+ */
+public class Metrics {
+    @FunctionalInterface
+    public interface Timed<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private static class Entry {
+        public final String context;
+        public final String phase;
+        public final String name;
+        public final double value;
+
+        public Entry(String context, String phase, String name, double value) {
+            this.context = context;
+            this.phase = phase;
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private final List<Entry> timings;
+    private final List<Entry> values;
+    private final String context;
+
+    public Metrics() {
+        this(Collections.synchronizedList(new ArrayList<>()), Collections.synchronizedList(new ArrayList<>()), "");
+    }
+
+    private Metrics(List<Entry> timings, List<Entry> values, String context) {
+        this.timings = timings;
+        this.values = values;
+        this.context = context;
+    }
+
+    /**
+     * @param name the name of the child context, appended to the context of this instance
+     * @return a view recording into the same report, in the child context
+     */
+    public Metrics forContext(String name) {
+        return new Metrics(timings, values, context.isEmpty() ? name : context + "/" + name);
+    }
+
+    /**
+     * Runs a piece of work and records its duration.
+     * @param phase the kind of work, e.g. "transformation"
+     * @param name what exactly is done, e.g. the name of the transformation
+     * @param work the work
+     * @return the result of the work
+     * @throws E if the work throws
+     */
+    public <T, E extends Exception> T time(String phase, String name, Timed<T, E> work) throws E {
+        long start = System.nanoTime();
+
+        try {
+            return work.run();
+        } finally {
+            recordTime(phase, name, System.nanoTime() - start);
+        }
+    }
+
+    public void recordTime(String phase, String name, long nanoseconds) {
+        timings.add(new Entry(context, phase, name, nanoseconds / 1e6));
+    }
+
+    public void recordValue(String phase, String name, double value) {
+        values.add(new Entry(context, phase, name, value));
+    }
+
+    public String toJson() {
+        List<Entry> timingsCopy;
+        List<Entry> valuesCopy;
+
+        synchronized (timings) {
+            timingsCopy = new ArrayList<>(timings);
+        }
+
+        synchronized (values) {
+            valuesCopy = new ArrayList<>(values);
+        }
+
+        Map<String, Double> totals = timingsCopy.stream()
+                .collect(Collectors.groupingBy(e -> e.phase + "/" + e.name, TreeMap::new, Collectors.summingDouble(e -> e.value)));
+
+        return "{\n" +
+                "  \"timings\": [\n" + entriesToJson(timingsCopy, "ms") + "\n  ],\n" +
+                "  \"values\": [\n" + entriesToJson(valuesCopy, "value") + "\n  ],\n" +
+                "  \"totals\": {\n" + totals.entrySet().stream()
+                        .map(e -> "    " + quote(e.getKey()) + ": " + number(e.getValue()))
+                        .collect(Collectors.joining(",\n")) + "\n  }\n" +
+                "}\n";
+    }
+
+    public void write(Path path) throws IOException {
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String entriesToJson(List<Entry> entries, String valueName) {
+        return entries.stream()
+                .map(e -> String.format("    {\"context\": %s, \"phase\": %s, \"name\": %s, %s: %s}",
+                        quote(e.context), quote(e.phase), quote(e.name), quote(valueName), number(e.value)))
+                .collect(Collectors.joining(",\n"));
+    }
+
+    private static String number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String s) {
+        StringBuilder builder = new StringBuilder("\"");
+
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                builder.append('\\').append(c);
+            else if (c < 0x20)
+                builder.append(String.format("\\u%04x", (int) c));
+            else
+                builder.append(c);
+        }
+
+        return builder.append('"').toString();
+    }
+}
@@ -4,6 +4,7 @@ import urbachyannick.approxflow.cnf.TrivialMappingValue;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -72,4 +73,28 @@ public class MiscUtil {
     public static <T> Stream<T> append(Stream<T> stream, T... elements) {
         return concat(stream, Arrays.stream(elements));
     }
+
+    /**
+     * Waits for an external tool to exit. If the waiting thread is interrupted (e.g. because the task running the tool
+     * was cancelled), the process is killed instead of being left running in the background, writing to temporary
+     * files that are about to be deleted. Child processes started by the tool itself are not reached.
+     * @param process the process to wait for
+     * @return the exit code of the process
+     * @throws InterruptedException if the thread was interrupted; the interrupt flag is set again
+     */
+    public static int waitForProcess(Process process) throws InterruptedException {
+        try {
+            return process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+
+            try {
+                process.waitFor(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
 }
@@ -8,7 +8,10 @@ import urbachyannick.approxflow.informationflow.*;
 import urbachyannick.approxflow.modelcounting.MaxModelCounter;
 import urbachyannick.approxflow.soot.LoopReplacer;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.*;
 import java.util.stream.*;
 
@@ -19,6 +22,7 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
     private final List<Transformation> preSplitTransformations;
     private final List<FlowConstraintAlgorithm> constraintAlgorithms;
     private final OffsetMarker offsetMarkerArray;
+    private final ExecutorService executor;
 
     public BlackboxAnalyzer(
             CnfGenerator cnfGenerator,
@@ -26,9 +30,50 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
             int defaultRecursionDepth,
             int defaultUnrollIterations,
             boolean defaultBlackboxLoops
+    ) {
+        this(cnfGenerator, modelCounter, defaultRecursionDepth, defaultUnrollIterations, defaultBlackboxLoops, 1);
+    }
+
+    /**
+     * @param jobs the maximum number of partial flows (each a JBMC and model counter run) to compute concurrently
+     */
+    public BlackboxAnalyzer(
+            CnfGenerator cnfGenerator,
+            MaxModelCounter modelCounter,
+            int defaultRecursionDepth,
+            int defaultUnrollIterations,
+            boolean defaultBlackboxLoops,
+            int jobs
+    ) {
+        this(cnfGenerator, modelCounter, defaultRecursionDepth, defaultUnrollIterations, defaultBlackboxLoops, jobs, UnaryOperator.identity());
+    }
+
+    /**
+     * @param jobs the maximum number of partial flows (each a JBMC and model counter run) to compute concurrently
+     * @param stageDecorator applied to the analyzer of the partial flows, e.g. to reuse them with an
+     *                       {@link IncrementalAnalyzer}
+     */
+    public BlackboxAnalyzer(
+            CnfGenerator cnfGenerator,
+            MaxModelCounter modelCounter,
+            int defaultRecursionDepth,
+            int defaultUnrollIterations,
+            boolean defaultBlackboxLoops,
+            int jobs,
+            UnaryOperator<FlowAnalyzer> stageDecorator
     ) {
         offsetMarkerArray = new OffsetMarker();
 
+        if (jobs > 1) {
+            executor = Executors.newFixedThreadPool(jobs, r -> {
+                Thread thread = new Thread(r, "partial-flow-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            executor = null;
+        }
+
         preSplitTransformations = new ArrayList<Transformation>() {{
             add(new UnrollLoops(defaultUnrollIterations, defaultBlackboxLoops));
             add(new InlineMethods(new InlinePreferences(true, defaultRecursionDepth, false)));
@@ -40,7 +85,7 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
             add(new AddDummyThrow());
         }};
 
-        partialAnalyzer = new DefaultAnalyzer(
+        partialAnalyzer = stageDecorator.apply(new DefaultAnalyzer(
                 cnfGenerator,
                 Stream.of(
                         new CountMaxIOInstances(),
@@ -55,7 +100,7 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
                 ),
                 Stream.of(new ReturnValuePublicInput(offsetMarkerArray)),
                 modelCounter
-        );
+        ));
 
         constraintAlgorithms = new ArrayList<FlowConstraintAlgorithm>() {{
             add(new StagedFlow());
@@ -66,50 +111,105 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
     @Override
     public double analyzeInformationFlow(Stream<ClassNode> classes, IOCallbacks ioCallbacks) {
         List<ClassNode> classesList = classes.collect(Collectors.toList());
+        offsetMarkerArray.resetSeed();
+        AtomicInteger stageCounter = new AtomicInteger(); // shared by restarts, so stage directories stay unique
 
         while (true) {
             try {
-                return analyzeInformationFlowNoTransformations(transformClasses(classesList.stream(), preSplitTransformations), ioCallbacks);
+                return analyzeInformationFlowNoTransformations(transformClasses(classesList.stream(), preSplitTransformations, ioCallbacks.getMetrics()), ioCallbacks, stageCounter);
             } catch (InvalidTransformationException e) {
                 throw new Fail("Error during transformation", e);
             } catch (AmbiguousOffsetMarkerException e) {
                 // in the unlikely event that another array has the exact same content as the offset marker, simply restart
-                // noinspection UnnecessaryContinue
-                continue;
+                // with a different marker
+                offsetMarkerArray.reseed();
             }
         }
     }
 
-    private double analyzeInformationFlowNoTransformations(Stream<ClassNode> classes, IOCallbacks ioCallbacks) throws InvalidTransformationException {
+    private double analyzeInformationFlowNoTransformations(Stream<ClassNode> classes, IOCallbacks ioCallbacks, AtomicInteger stageCounter) throws InvalidTransformationException {
         List<ClassNode> classList = classes.collect(Collectors.toList());
         List<BlackboxCall> blackboxCalls = findBlackboxCalls(classList);
 
-        Map<SourcesSinksPair, Double> partialFlowsCache = new HashMap<>();
+        Map<SourcesSinksPair, FutureTask<Double>> partialFlowsCache = new ConcurrentHashMap<>();
 
-        ToDoubleFunction<SourcesSinksPair> getPartialFlow = p -> {
-            Double flow = partialFlowsCache.get(p);
+        Function<SourcesSinksPair, FutureTask<Double>> getTask = p -> partialFlowsCache.computeIfAbsent(p, q -> new FutureTask<>(() -> {
+            // shares the unchanged classes and methods with the other stages (see ClassEdit)
+            List<ClassNode> transformed = new Preprocess(q).apply(classList.stream()).collect(Collectors.toList());
 
-            if (flow == null) {
-                Preprocess preprocessor = new Preprocess(p);
-                Stream<ClassNode> transformed = preprocessor.apply(classList.stream());
-                flow = partialAnalyzer.analyzeInformationFlow(transformed, ioCallbacks);
-                partialFlowsCache.put(p, flow);
+            try (IOCallbacks stageCallbacks = ioCallbacks.fork("stage-" + stageCounter.incrementAndGet())) {
+                return partialAnalyzer.analyzeInformationFlow(transformed.stream(), stageCallbacks);
+            } catch (IOException e) {
+                throw new Fail("Could not create or clean up temporary directory", e);
             }
+        }));
+
+        // with an executor, all tasks run on it (each at most once), so there are never more than jobs at a time
+        Set<FutureTask<Double>> submittedTasks = ConcurrentHashMap.newKeySet();
 
-            return flow;
+        Consumer<FutureTask<Double>> submit = t -> {
+            if (submittedTasks.add(t))
+                executor.execute(t);
+        };
+
+        PartialFlowProvider getPartialFlow = new PartialFlowProvider() {
+            @Override
+            public double applyAsDouble(SourcesSinksPair pair) {
+                FutureTask<Double> task = getTask.apply(pair);
+
+                if (executor != null)
+                    submit.accept(task);
+                else
+                    task.run();
+
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new Fail("Interrupted while computing partial flow", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+
+                    if (e.getCause() instanceof Error)
+                        throw (Error) e.getCause();
+
+                    throw new Fail("Error while computing partial flow", (Exception) e.getCause());
+                }
+            }
+
+            @Override
+            public void prefetch(Stream<SourcesSinksPair> pairs) {
+                if (executor != null)
+                    pairs.map(getTask).forEach(submit);
+            }
         };
 
         double flow = Double.POSITIVE_INFINITY;
 
-        for (FlowConstraintAlgorithm algorithm : constraintAlgorithms) {
-            double flowConstraint = algorithm.findFlowUpperBound(blackboxCalls.stream(), getPartialFlow);
-            flow = Math.min(flow, flowConstraint);
+        try {
+            for (FlowConstraintAlgorithm algorithm : constraintAlgorithms) {
+                double flowConstraint = algorithm.findFlowUpperBound(blackboxCalls.stream(), getPartialFlow);
+                flow = Math.min(flow, flowConstraint);
+            }
+        } finally {
+            partialFlowsCache.values().forEach(t -> t.cancel(true)); // stop remaining tasks if one of them failed
         }
 
         return flow;
     }
 
+    @Override
+    public void close() {
+        if (executor != null)
+            executor.shutdownNow(); // interrupts the tools of tasks still running (see MiscUtil.waitForProcess)
+
+        partialAnalyzer.close();
+    }
+
     private static List<BlackboxCall> findBlackboxCalls(List<ClassNode> classes) throws InvalidTransformationException {
+        ClassHierarchy hierarchy = new ClassHierarchy(classes);
+
         ClassNode mainClass = findClassWithMainMethod(classes.stream())
                 .orElseThrow(() -> new InvalidTransformationException("No main method found"));
 
@@ -126,12 +226,7 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
 
             MethodInsnNode call = (MethodInsnNode) instruction;
 
-            Optional<ClassNode> owner = findClass(classes.stream(), call.owner);
-
-            if (!owner.isPresent())
-                continue;
-
-            Optional<MethodNode> method = findMethod(owner.get(), call.owner, call.name, call.desc);
+            Optional<MethodNode> method = hierarchy.findMethod(call.owner, call.name, call.desc);
 
             if (!method.isPresent())
                 continue;
@@ -143,9 +238,12 @@ public class BlackboxAnalyzer implements FlowAnalyzer {
         return blackboxCalls;
     }
 
-    private Stream<ClassNode> transformClasses(Stream<ClassNode> classes, List<Transformation> transformations) throws InvalidTransformationException {
-        for (Transformation t : transformations)
-            classes = t.apply(classes);
+    private Stream<ClassNode> transformClasses(Stream<ClassNode> classes, List<Transformation> transformations, Metrics metrics) throws InvalidTransformationException {
+        for (Transformation t : transformations) {
+            // transformations are lazy, so the result is collected to attribute the time to the right one
+            ClassHierarchy input = new ClassHierarchy(classes);
+            classes = metrics.time("transformation", t.getClass().getSimpleName(), () -> t.apply(input).collect(Collectors.toList())).stream();
+        }
 
         return classes;
     }
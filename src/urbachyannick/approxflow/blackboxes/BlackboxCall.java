@@ -1,9 +1,8 @@
 package urbachyannick.approxflow.blackboxes;
 
 import org.objectweb.asm.tree.*;
-import urbachyannick.approxflow.codetransformation.RuntimeInvalidTransformationException;
+import urbachyannick.approxflow.codetransformation.*;
 
-import java.util.List;
 import java.util.stream.Stream;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
@@ -19,7 +18,7 @@ public class BlackboxCall implements FlowSource, FlowSink {
         return indexInMainMethod;
     }
 
-    public BlackboxCallInfo getInfo(List<ClassNode> classes) {
+    public BlackboxCallInfo getInfo(ClassHierarchy classes) {
         return new BlackboxCallInfo(indexInMainMethod, classes);
     }
 
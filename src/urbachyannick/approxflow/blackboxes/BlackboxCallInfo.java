@@ -1,9 +1,7 @@
 package urbachyannick.approxflow.blackboxes;
 
 import org.objectweb.asm.tree.*;
-import urbachyannick.approxflow.codetransformation.RuntimeInvalidTransformationException;
-
-import java.util.List;
+import urbachyannick.approxflow.codetransformation.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
@@ -15,10 +13,10 @@ public class BlackboxCallInfo {
     private final MethodNode callingMethod;
     private final MethodInsnNode call;
 
-    public BlackboxCallInfo(int indexInMainMethod, List<ClassNode> classes) {
+    public BlackboxCallInfo(int indexInMainMethod, ClassHierarchy classes) {
         this.indexInMainMethod = indexInMainMethod;
 
-        callingMethodOwner = findClassWithMainMethod(classes.stream())
+        callingMethodOwner = findClassWithMainMethod(classes.getClasses().stream())
                 .orElseThrow(() -> new RuntimeInvalidTransformationException("No main method found"));
 
         callingMethod = findMainMethod(callingMethodOwner)
@@ -26,10 +24,10 @@ public class BlackboxCallInfo {
 
         call = (MethodInsnNode) callingMethod.instructions.get(indexInMainMethod);
 
-        calledMethodOwner = findClass(classes.stream(), call.owner)
+        calledMethodOwner = classes.findClass(call.owner)
                 .orElseThrow(() -> new RuntimeInvalidTransformationException("Class " + call.owner + " not found"));
 
-        calledMethod = findMethod(calledMethodOwner, call.owner, call.name, call.desc)
+        calledMethod = classes.findMethod(call.owner, call.name, call.desc)
                 .orElseThrow(() -> new RuntimeInvalidTransformationException("Method " + call.name + " not found"));
     }
 
@@ -1,14 +1,13 @@
 package urbachyannick.approxflow.blackboxes;
 
 import java.util.*;
-import java.util.function.ToDoubleFunction;
 import java.util.stream.*;
 
 public class FordFulkerson implements FlowConstraintAlgorithm {
     private static final double ZERO_FLOW_THRESHOLD = 0.5;
 
     @Override
-    public double findFlowUpperBound(Stream<BlackboxCall> blackboxCalls, ToDoubleFunction<SourcesSinksPair> getPartialFlow) {
+    public double findFlowUpperBound(Stream<BlackboxCall> blackboxCalls, PartialFlowProvider getPartialFlow) {
         List<FlowNode> nodes = new ArrayList<>();
         nodes.add(Input.SINGLETON);
         blackboxCalls.forEach(nodes::add);
@@ -27,7 +26,7 @@ public class FordFulkerson implements FlowConstraintAlgorithm {
         return flow;
     }
 
-    private double segmentFlow(int source, int sink, List<FlowNode> nodes, ToDoubleFunction<SourcesSinksPair> getPartialFlow) {
+    private double segmentFlow(int source, int sink, List<FlowNode> nodes, PartialFlowProvider getPartialFlow) {
         return getPartialFlow.applyAsDouble(
                 new SourcesSinksPair(
                         Stream.of((FlowSource) nodes.get(source)),
@@ -0,0 +1,13 @@
+package urbachyannick.approxflow.blackboxes;
+
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Provides the flow between a set of sources and a set of sinks. Flow constraint algorithms that know in advance which
+ * partial flows they need should announce them via {@link #prefetch(Stream)}, so they can be computed concurrently.
+ */
+@FunctionalInterface
+public interface PartialFlowProvider extends ToDoubleFunction<SourcesSinksPair> {
+    default void prefetch(Stream<SourcesSinksPair> pairs) {}
+}
@@ -19,41 +19,89 @@ public class Preprocess implements Transformation {
 
     @Override
     public Stream<ClassNode> apply(Stream<ClassNode> classes) {
-        List<ClassNode> targetClasses = classes
-                .map(this::applyToClass)
+        List<ClassEdit> edits = classes
+                .map(ClassEdit::new)
                 .collect(Collectors.toList());
 
+        edits.forEach(this::applyToClass);
+        editForBlackboxCalls(edits);
+
+        List<ClassNode> targetClasses = edits.stream()
+                .map(ClassEdit::get)
+                .collect(Collectors.toList());
+
+        ClassHierarchy hierarchy = new ClassHierarchy(targetClasses);
+
 
         Map<MethodNode, MethodNode> blackboxInputMethods = new HashMap<>();
 
         Iterator<BlackboxCallInfo> i = sourcesSinks
                 .getBlackboxSources()
-                .map(c -> c.getInfo(targetClasses))
+                .map(c -> c.getInfo(hierarchy))
                 .iterator();
 
         while (i.hasNext())
-            replaceWithInputMethod(i.next(), targetClasses, blackboxInputMethods);
+            replaceWithInputMethod(i.next(), hierarchy, blackboxInputMethods);
 
 
         Map<MethodNode, MethodNode> blackboxOutputMethods = new HashMap<>();
 
         Iterator<BlackboxCallInfo> j = sourcesSinks
                 .getBlackboxSinks()
-                .map(c -> c.getInfo(targetClasses))
+                .map(c -> c.getInfo(hierarchy))
                 .iterator();
 
         while (j.hasNext())
-            replaceWithOutputMethod(j.next(), targetClasses, blackboxOutputMethods);
+            replaceWithOutputMethod(j.next(), hierarchy, blackboxOutputMethods);
 
         return targetClasses.stream();
     }
 
-    private ClassNode applyToClass(ClassNode sourceClass) {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-        sourceClass.accept(targetClass);
-        targetClass.methods.forEach(this::applyToMethod);
-        targetClass.fields.forEach(this::applyToField);
-        return targetClass;
+    private void applyToClass(ClassEdit class_) {
+        ClassNode sourceClass = class_.get();
+
+        for (MethodNode method : sourceClass.methods) {
+            if (
+                    (!sourcesSinks.includesInput() && hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PrivateInput;")) ||
+                    (!sourcesSinks.includesOutput() && anyHasAnnotation(method.visibleParameterAnnotations, "Lurbachyannick/approxflow/PublicOutput;")) ||
+                    hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/Blackbox;")
+            ) {
+                applyToMethod(class_.editMethod(method));
+            }
+        }
+
+        for (FieldNode field : sourceClass.fields) {
+            if (!sourcesSinks.includesOutput() && hasAnnotation(field.visibleAnnotations, "Lurbachyannick/approxflow/PublicOutput;"))
+                applyToField(class_.editField(field));
+        }
+    }
+
+    // The blackbox calls that are sources or sinks are renamed in the main method, and the methods replacing the called
+    // methods added to their classes, so these must be edited too.
+    private void editForBlackboxCalls(List<ClassEdit> classes) {
+        List<BlackboxCall> calls = Stream
+                .concat(sourcesSinks.getBlackboxSources(), sourcesSinks.getBlackboxSinks())
+                .collect(Collectors.toList());
+
+        if (calls.isEmpty())
+            return;
+
+        Map<String, ClassEdit> classesByName = new HashMap<>();
+        classes.forEach(c -> classesByName.putIfAbsent(c.get().name, c));
+
+        ClassEdit mainClass = classes.stream()
+                .filter(c -> findMainMethod(c.get()).isPresent())
+                .findFirst()
+                .orElseThrow(() -> new RuntimeInvalidTransformationException("No main method found"));
+
+        MethodNode mainMethod = mainClass.editMethod(findMainMethod(mainClass.get()).get());
+
+        for (BlackboxCall call : calls) {
+            AbstractInsnNode instruction = mainMethod.instructions.get(call.getIndexInMainMethod());
+
+            if (instruction instanceof MethodInsnNode && classesByName.containsKey(((MethodInsnNode) instruction).owner))
+                classesByName.get(((MethodInsnNode) instruction).owner).edit();
+        }
     }
 
     private void applyToMethod(MethodNode method) {
@@ -91,7 +139,7 @@ public class Preprocess implements Transformation {
     }
 
 
-    private static MethodNode replaceWithInputMethod(BlackboxCallInfo call, List<ClassNode> classes, Map<MethodNode, MethodNode> blackboxInputMethods) {
+    private static MethodNode replaceWithInputMethod(BlackboxCallInfo call, ClassHierarchy classes, Map<MethodNode, MethodNode> blackboxInputMethods) {
 
         MethodNode inputMethod = blackboxInputMethods.get(call.getCalledMethod());
 
@@ -115,7 +163,7 @@ public class Preprocess implements Transformation {
             inputMethod.instructions.add(new LdcInsnNode(0));
             inputMethod.instructions.add(new InsnNode(returnType.asPrimitive().getReturnOpcode()));
 
-            call.getCalledMethodOwner().methods.add(inputMethod);
+            classes.addMethod(call.getCalledMethodOwner(), inputMethod);
             blackboxInputMethods.put(call.getCalledMethod(), inputMethod);
         }
 
@@ -124,7 +172,7 @@ public class Preprocess implements Transformation {
         return inputMethod;
     }
 
-    private static MethodNode replaceWithOutputMethod(BlackboxCallInfo call, List<ClassNode> classes, Map<MethodNode, MethodNode> blackboxOutputMethods) {
+    private static MethodNode replaceWithOutputMethod(BlackboxCallInfo call, ClassHierarchy classes, Map<MethodNode, MethodNode> blackboxOutputMethods) {
 
         MethodNode outputMethod = blackboxOutputMethods.get(call.getCalledMethod());
 
@@ -152,7 +200,7 @@ public class Preprocess implements Transformation {
 
             outputMethod.maxLocals = argumentTypes.size();
 
-            call.getCalledMethodOwner().methods.add(outputMethod);
+            classes.addMethod(call.getCalledMethodOwner(), outputMethod);
             blackboxOutputMethods.put(call.getCalledMethod(), outputMethod);
         }
 
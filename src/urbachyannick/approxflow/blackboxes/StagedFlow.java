@@ -3,26 +3,27 @@ package urbachyannick.approxflow.blackboxes;
 import static urbachyannick.approxflow.MiscUtil.append;
 
 import java.util.*;
-import java.util.function.ToDoubleFunction;
 import java.util.stream.*;
 
 public class StagedFlow implements FlowConstraintAlgorithm {
     @Override
-    public double findFlowUpperBound(Stream<BlackboxCall> blackboxCalls, ToDoubleFunction<SourcesSinksPair> getPartialFlow) {
+    public double findFlowUpperBound(Stream<BlackboxCall> blackboxCalls, PartialFlowProvider getPartialFlow) {
         List<BlackboxCall> calls = blackboxCalls.collect(Collectors.toList());
 
-        double flow = Double.POSITIVE_INFINITY;
+        List<SourcesSinksPair> stages = IntStream
+                .rangeClosed(0, calls.size())
+                .mapToObj(i -> new SourcesSinksPair(
+                        append(calls.subList(0, i).stream().map(c -> c), Input.SINGLETON), // input and blackboxes up to (excluding) i
+                        append(calls.subList(i, calls.size()).stream().map(c -> c), Output.SINGLETON) // output and blackboxes starting from i
+                ))
+                .collect(Collectors.toList());
+
+        getPartialFlow.prefetch(stages.stream()); // stages are independent, so they can all be evaluated concurrently
 
-        for (int i = 0; i <= calls.size(); ++i) {
-            double stageFlow = getPartialFlow.applyAsDouble(
-                    new SourcesSinksPair(
-                            append(calls.subList(0, i).stream().map(c -> c), Input.SINGLETON), // input and blackboxes up to (excluding) i
-                            append(calls.subList(i, calls.size()).stream().map(c -> c), Output.SINGLETON) // output and blackboxes starting from i
-                    )
-            );
+        double flow = Double.POSITIVE_INFINITY;
 
-            flow = Math.min(flow, stageFlow);
-        }
+        for (SourcesSinksPair stage : stages)
+            flow = Math.min(flow, getPartialFlow.applyAsDouble(stage));
 
         return flow;
     }
@@ -0,0 +1,117 @@
+package urbachyannick.approxflow.cache;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.util.stream.IntStream;
+
+/**
+ * Builder for content based cache keys. All parts added are fed into a SHA-256 digest, each prefixed with its type and
+ * length so that different sequences of parts can not produce the same input to the digest.
+ */
+public class CacheKey {
+    private final MessageDigest digest;
+    private final ByteBuffer buffer;
+
+    public CacheKey() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+
+        buffer = ByteBuffer.allocate(1 << 16);
+    }
+
+    public CacheKey add(String value) {
+        return add(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public CacheKey add(byte[] value) {
+        flush();
+        digest.update((byte) 'b');
+        digest.update(ByteBuffer.allocate(4).putInt(value.length).array());
+        digest.update(value);
+        return this;
+    }
+
+    public CacheKey add(int value) {
+        flush();
+        digest.update((byte) 'i');
+        digest.update(ByteBuffer.allocate(4).putInt(value).array());
+        return this;
+    }
+
+    public CacheKey add(long value) {
+        flush();
+        digest.update((byte) 'l');
+        digest.update(ByteBuffer.allocate(8).putLong(value).array());
+        return this;
+    }
+
+    public CacheKey add(double value) {
+        return add(Double.doubleToLongBits(value));
+    }
+
+    public CacheKey add(boolean value) {
+        return add(value ? 1 : 0);
+    }
+
+    /**
+     * Adds a sequence of ints. The sequence is terminated, so two adjacent sequences can not be confused with a single
+     * longer one.
+     */
+    public CacheKey add(IntStream values) {
+        flush();
+        digest.update((byte) 's');
+
+        values.forEach(v -> {
+            if (buffer.remaining() < 5)
+                flush();
+
+            buffer.put((byte) 1);
+            buffer.putInt(v);
+        });
+
+        flush();
+        digest.update((byte) 0);
+        return this;
+    }
+
+    public CacheKey addFile(Path path) throws IOException {
+        flush();
+        digest.update((byte) 'f');
+        digest.update(ByteBuffer.allocate(8).putLong(Files.size(path)).array());
+
+        try (InputStream input = Files.newInputStream(path)) {
+            byte[] bytes = new byte[1 << 16];
+            int read;
+
+            while ((read = input.read(bytes)) >= 0)
+                digest.update(bytes, 0, read);
+        }
+
+        return this;
+    }
+
+    private void flush() {
+        ((Buffer) buffer).flip(); // cast for compatibility with Java 8 when built by a newer compiler
+        digest.update(buffer);
+        ((Buffer) buffer).clear();
+    }
+
+    /**
+     * @return the key as a hex string; the builder must not be used afterwards
+     */
+    public String build() {
+        flush();
+        StringBuilder builder = new StringBuilder();
+
+        for (byte b : digest.digest())
+            builder.append(String.format("%02x", b));
+
+        return builder.toString();
+    }
+}
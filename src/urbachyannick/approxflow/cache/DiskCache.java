@@ -0,0 +1,261 @@
+package urbachyannick.approxflow.cache;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.*;
+
+/**
+ * Persistent content addressed cache. Every entry is a file in the cache directory, named by its namespace and key.
+ * The total size of the entries is bounded; when it is exceeded, the least recently used entries are deleted. The
+ * modification time of the entry files is used as their last use time, so the order survives across runs.
+ *
+ * Entries are written to a temporary file first and then moved into place, so concurrent processes using the same
+ * directory never see partially written entries. Temporary files left behind by crashed processes are deleted when a
+ * cache is opened, once they are old enough not to belong to a writer that is still running.
+ */
+public class DiskCache {
+    public interface EntryWriter {
+        void write(Path file) throws IOException;
+    }
+
+    public static class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        @Override
+        public String toString() {
+            return getHits() + " hits, " + getMisses() + " misses";
+        }
+    }
+
+    private static final long staleTemporaryAge = 24L * 60 * 60 * 1000;
+
+    private final Path directory;
+    private final long maxSize;
+    private final Map<String, Statistics> statistics;
+    private long size;
+
+    /**
+     * @param directory the cache directory; created if it does not exist
+     * @param maxSize the maximum total size of all entries in bytes
+     * @throws IOException if the cache directory can not be created or read
+     */
+    public DiskCache(Path directory, long maxSize) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        this.maxSize = maxSize;
+        this.statistics = new TreeMap<>();
+
+        Files.createDirectories(this.directory);
+
+        deleteStaleTemporaries();
+
+        try (Stream<Path> entries = Files.list(this.directory)) {
+            size = entries
+                    .filter(p -> !isTemporary(p))
+                    .mapToLong(DiskCache::sizeOrZero)
+                    .sum();
+        }
+    }
+
+    private void deleteStaleTemporaries() throws IOException {
+        long staleBefore = System.currentTimeMillis() - staleTemporaryAge;
+        List<Path> stale;
+
+        try (Stream<Path> entries = Files.list(directory)) {
+            stale = entries
+                    .filter(DiskCache::isTemporary)
+                    .filter(p -> lastModifiedOrEpoch(p).toMillis() < staleBefore)
+                    .collect(Collectors.toList());
+        }
+
+        for (Path temporary : stale) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) { // e.g. still open on Windows, deleted when the cache is opened again
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Looks up an entry and marks it as recently used.
+     * @param namespace the kind of entry, e.g. "count"
+     * @param key the key, usually built by {@link CacheKey}
+     * @return the path of the entry file, if present
+     */
+    public synchronized Optional<Path> get(String namespace, String key) {
+        Path entry = entryPath(namespace, key);
+
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) { // missing (or evicted by another process in the meantime)
+            statisticsFor(namespace).misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        statisticsFor(namespace).hits.incrementAndGet();
+        return Optional.of(entry);
+    }
+
+    /**
+     * Looks up an entry like {@link #get} and makes it available at another path without copying it, as a hard link.
+     * The link stays valid even if the entry is evicted or replaced in the meantime. If the target is on a file system
+     * that does not support this, the entry is copied instead.
+     * @param target the path to link the entry to; replaced if it exists
+     * @return the target path, if the entry is present
+     */
+    public Optional<Path> getLinked(String namespace, String key, Path target) throws IOException {
+        Optional<Path> entry = get(namespace, key);
+
+        if (!entry.isPresent())
+            return Optional.empty();
+
+        Files.deleteIfExists(target);
+
+        try {
+            try {
+                Files.createLink(target, entry.get());
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(entry.get(), target);
+            }
+        } catch (NoSuchFileException e) { // evicted by another process in the meantime
+            return Optional.empty();
+        }
+
+        return Optional.of(target);
+    }
+
+    public Optional<byte[]> getBytes(String namespace, String key) {
+        Optional<Path> entry = get(namespace, key);
+
+        if (!entry.isPresent())
+            return Optional.empty();
+
+        try {
+            return Optional.of(Files.readAllBytes(entry.get()));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a copy of a file as an entry.
+     */
+    public void put(String namespace, String key, Path file) throws IOException {
+        Path temporary = Files.createTempFile(directory, ".", ".tmp");
+
+        try {
+            Files.copy(file, temporary, StandardCopyOption.REPLACE_EXISTING);
+            commit(namespace, key, temporary);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Stores an entry by writing it directly into the cache directory.
+     * @param writer writes the content of the entry to the given (existing, empty) file
+     */
+    public void put(String namespace, String key, EntryWriter writer) throws IOException {
+        Path temporary = Files.createTempFile(directory, ".", ".tmp");
+
+        try {
+            writer.write(temporary);
+            commit(namespace, key, temporary);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    public void putBytes(String namespace, String key, byte[] value) throws IOException {
+        Path temporary = Files.createTempFile(directory, ".", ".tmp");
+
+        try {
+            Files.write(temporary, value);
+            commit(namespace, key, temporary);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private synchronized void commit(String namespace, String key, Path temporary) throws IOException {
+        Path entry = entryPath(namespace, key);
+        long previousSize = sizeOrZero(entry);
+        long newSize = Files.size(temporary);
+
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        size += newSize - previousSize;
+
+        if (size > maxSize)
+            evict();
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries;
+
+        try (Stream<Path> s = Files.list(directory)) {
+            entries = s
+                    .filter(p -> !isTemporary(p))
+                    .sorted(Comparator.comparing(DiskCache::lastModifiedOrEpoch))
+                    .collect(Collectors.toList());
+        }
+
+        size = entries.stream().mapToLong(DiskCache::sizeOrZero).sum();
+
+        for (Path entry : entries) {
+            if (size <= maxSize)
+                break;
+
+            long entrySize = sizeOrZero(entry);
+
+            if (Files.deleteIfExists(entry))
+                size -= entrySize;
+        }
+    }
+
+    public synchronized Map<String, Statistics> getStatistics() {
+        return new TreeMap<>(statistics);
+    }
+
+    private synchronized Statistics statisticsFor(String namespace) {
+        return statistics.computeIfAbsent(namespace, n -> new Statistics());
+    }
+
+    private Path entryPath(String namespace, String key) {
+        return directory.resolve(namespace + "-" + key);
+    }
+
+    private static boolean isTemporary(Path path) {
+        return path.getFileName().toString().startsWith(".");
+    }
+
+    private static long sizeOrZero(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModifiedOrEpoch(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
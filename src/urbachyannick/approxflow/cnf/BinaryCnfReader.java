@@ -0,0 +1,126 @@
+package urbachyannick.approxflow.cnf;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Reads a file written by {@link BinaryCnfWriter}. The file is memory mapped; reading decodes the header, clauses and
+ * scopes, while the variable lines are only decoded when they are looked up in the {@link BinaryVariableTable}. The
+ * file must not change as long as the variable table is used.
+ */
+public class BinaryCnfReader {
+    private final Path path;
+    private final boolean immutable;
+
+    private Problem problem;
+    private BinaryVariableTable variableTable;
+    private Scope countVars;
+    private Scope maxVars;
+
+    public BinaryCnfReader(Path path) {
+        this(path, false);
+    }
+
+    /**
+     * @param path the binary CNF file
+     * @param immutable whether the file is never written in place (see {@link SourceFile#ofImmutable})
+     */
+    public BinaryCnfReader(Path path, boolean immutable) {
+        this.path = path;
+        this.immutable = immutable;
+    }
+
+    /**
+     * @return whether the file starts like a file written by {@link BinaryCnfWriter}
+     */
+    public static boolean isBinaryCnf(Path path) throws IOException {
+        if (Files.size(path) < BinaryCnfWriter.MAGIC.length)
+            return false;
+
+        return Arrays.equals(new MappedFile(path).read(0, BinaryCnfWriter.MAGIC.length), BinaryCnfWriter.MAGIC);
+    }
+
+    public BinaryCnfReader read() throws IOException {
+        SourceFile source = immutable ? SourceFile.ofImmutable(path) : SourceFile.of(path);
+        MappedFile file = new MappedFile(path);
+
+        if (file.size() < BinaryCnfWriter.HEADER_SIZE || !Arrays.equals(file.read(0, BinaryCnfWriter.MAGIC.length), BinaryCnfWriter.MAGIC))
+            throw new IOException("Not a binary CNF file (or an unsupported version): " + path);
+
+        long p = BinaryCnfWriter.MAGIC.length;
+        int variableCount = file.getInt(p);
+        int clauseCount = file.getInt(p + 4);
+        int literalCount = file.getInt(p + 8);
+        int mappingCount = file.getInt(p + 12);
+        int stringCount = file.getInt(p + 16);
+        int arrayCount = file.getInt(p + 20);
+        int arrayElementCount = file.getInt(p + 24);
+        long clausesPosition = file.getLong(p + 28);
+        long mappingsPosition = file.getLong(p + 36);
+        long indexPosition = file.getLong(p + 52);
+        long scopesPosition = file.getLong(p + 60);
+
+        problem = readClauses(new VarintReader(file, clausesPosition, mappingsPosition), variableCount, clauseCount, literalCount);
+
+        VarintReader scopes = new VarintReader(file, scopesPosition, file.size());
+        countVars = readScope(scopes);
+        maxVars = readScope(scopes);
+
+        variableTable = new BinaryVariableTable(source, file, mappingCount, stringCount, arrayCount, arrayElementCount, indexPosition);
+        return this;
+    }
+
+    private static Problem readClauses(VarintReader in, int variableCount, int clauseCount, int literalCount) throws IOException {
+        int[] literals = new int[literalCount];
+        int[] clauseOffsets = new int[clauseCount + 1];
+        int literal = 0;
+
+        for (int i = 0; i < clauseCount; ++i) {
+            int length = in.readVarint();
+
+            if (length < 0 || length > literalCount - literal)
+                throw new IOException("Invalid binary CNF file (clause length out of range)");
+
+            for (int j = 0; j < length; ++j)
+                literals[literal++] = in.readZigzag();
+
+            clauseOffsets[i + 1] = literal;
+        }
+
+        if (literal != literalCount)
+            throw new IOException("Invalid binary CNF file (incorrect literal count)");
+
+        return new Problem(variableCount, literals, clauseOffsets);
+    }
+
+    private static Scope readScope(VarintReader in) throws IOException {
+        int[] variables = new int[in.readVarint()];
+
+        for (int i = 0; i < variables.length; ++i)
+            variables[i] = in.readVarint();
+
+        return new Scope(variables);
+    }
+
+    public Problem getProblem() {
+        return problem;
+    }
+
+    public VariableTable getVariableTable() {
+        return variableTable;
+    }
+
+    // there is no DIMACS file to copy instead of serializing the problem
+    public MappedProblem getMappedProblem() {
+        return new MappedProblem(problem, variableTable);
+    }
+
+    public Scope getCountVars() {
+        return countVars;
+    }
+
+    public Scope getMaxVars() {
+        return maxVars;
+    }
+}
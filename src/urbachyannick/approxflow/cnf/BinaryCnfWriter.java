@@ -0,0 +1,270 @@
+package urbachyannick.approxflow.cnf;
+
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Writes mapped problems in a compact binary format, read by {@link BinaryCnfReader}. Meant for files that are only
+ * read by approxflow again (like the CNF cache); external tools need DIMACS, see {@link IO#convertToDimacs}.
+ * <p>
+ * Signatures are stored without their indices in a table of distinct strings, so all generations of a variable share
+ * one string. Numbers are unsigned LEB128 varints (zigzag encoded if signed) except in the index, which has fixed size
+ * big endian entries so that it can be searched in the mapped file without decoding it. Layout:
+ * <pre>
+ * header    "AFCNF\0\0" and the format version (1 byte), then as ints: variables, clauses, literals, mappings,
+ *           strings, arrays, array elements, then as longs: positions of clauses, mappings, strings, index and scopes
+ * clauses   per clause: length, literals (zigzag)
+ * mappings  per variable line: string id, thread + 1, instance + 1, generation + 1, value count, values (0 for
+ *           FALSE, 1 for TRUE, zigzag(literal) + 1 otherwise)
+ * strings   per string: UTF-8 length, UTF-8 bytes of the signature without indices
+ * index     long[mappings + 1]: positions of the mappings
+ *           long[strings + 1]: positions of the strings
+ *           long[strings]: key hash &lt;&lt; 32 | string id, sorted (see {@link LazyVariableTable#keyHash})
+ *           int[strings + 1], int[mappings]: for each string, the ids of its mappings in the order of the file
+ *           long[arrays]: addresses of the arrays with element lines, sorted
+ *           int[arrays + 1], int[array elements]: for each array, the string ids of its elements
+ * scopes    count vars and max vars, each as count and variables
+ * </pre>
+ */
+public class BinaryCnfWriter {
+    static final byte[] MAGIC = { 'A', 'F', 'C', 'N', 'F', 0, 0, 1 };
+    static final int HEADER_SIZE = MAGIC.length + 7 * 4 + 5 * 8;
+
+    public static void write(MappedProblem problem, Path path) throws IOException {
+        write(problem, new Scope(), new Scope(), path);
+    }
+
+    public static void write(MaxModelCountingProblem problem, Path path) throws IOException {
+        write(problem.getMappedProblem(), problem.getCountVars(), problem.getMaxVars(), path);
+    }
+
+    public static void write(MappedProblem problem, Scope countVars, Scope maxVars, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_SIZE]); // filled in at the end
+
+            long clausesPosition = out.position;
+            writeClauses(problem.getProblem(), out);
+
+            long mappingsPosition = out.position;
+            Map<String, Integer> stringIds = new HashMap<>();
+            List<String> strings = new ArrayList<>();
+            List<Signature> stripped = new ArrayList<>();
+            LongArrayBuilder mappingPositions = new LongArrayBuilder();
+            IntArrayBuilder mappingStrings = new IntArrayBuilder();
+
+            for (VariableMapping m : (Iterable<VariableMapping>) problem.getVariableTable().getMappings()::iterator) {
+                Signature strippedSignature = m.getSignature().stripIndices();
+                String text = strippedSignature.toString();
+                Integer id = stringIds.get(text);
+
+                if (id == null) {
+                    id = strings.size();
+                    stringIds.put(text, id);
+                    strings.add(text);
+                    stripped.add(strippedSignature);
+                }
+
+                mappingPositions.add(out.position);
+                mappingStrings.add(id);
+                writeMapping(m, id, out);
+            }
+
+            mappingPositions.add(out.position);
+
+            long stringsPosition = out.position;
+            LongArrayBuilder stringPositions = new LongArrayBuilder();
+            long[] stringKeys = new long[strings.size()];
+
+            for (int i = 0; i < strings.size(); ++i) {
+                byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                stringPositions.add(out.position);
+                stringKeys[i] = (long) LazyVariableTable.keyHash(bytes, 0, bytes.length) << 32 | i;
+                out.writeVarint(bytes.length);
+                out.write(bytes);
+            }
+
+            stringPositions.add(out.position);
+            Arrays.sort(stringKeys);
+
+            // string id -> mapping ids, and array address -> string ids
+            int[][] mappingsByString = groupBy(mappingStrings, strings.size());
+            SortedMap<Long, IntArrayBuilder> elementsByArray = new TreeMap<>();
+
+            for (int i = 0; i < stripped.size(); ++i) {
+                if (stripped.get(i) instanceof DynamicArraySignature)
+                    elementsByArray.computeIfAbsent(((DynamicArraySignature) stripped.get(i)).getAddress(), a -> new IntArrayBuilder()).add(i);
+            }
+
+            long indexPosition = out.position;
+
+            for (int i = 0; i < mappingPositions.size(); ++i)
+                out.writeLong(mappingPositions.get(i));
+
+            for (int i = 0; i < stringPositions.size(); ++i)
+                out.writeLong(stringPositions.get(i));
+
+            for (long key : stringKeys)
+                out.writeLong(key);
+
+            writeLists(mappingsByString, out);
+
+            for (long address : elementsByArray.keySet())
+                out.writeLong(address);
+
+            int[][] elements = elementsByArray.values().stream().map(IntArrayBuilder::toArray).toArray(int[][]::new);
+            int elementCount = writeLists(elements, out);
+
+            long scopesPosition = out.position;
+            writeScope(countVars, out);
+            writeScope(maxVars, out);
+            out.flush();
+
+            Problem p = problem.getProblem();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC);
+            header.putInt(p.getVariableCount()).putInt(p.getClauseCount()).putInt(p.getLiteralCount());
+            header.putInt(mappingStrings.size()).putInt(strings.size()).putInt(elements.length).putInt(elementCount);
+            header.putLong(clausesPosition).putLong(mappingsPosition).putLong(stringsPosition).putLong(indexPosition).putLong(scopesPosition);
+            ((Buffer) header).flip();
+
+            long position = 0;
+
+            while (header.hasRemaining())
+                position += channel.write(header, position);
+        }
+    }
+
+    private static void writeClauses(Problem problem, Output out) throws IOException {
+        int[] literals = problem.getLiteralArray();
+        int[] clauseOffsets = problem.getClauseOffsetArray();
+
+        for (int i = 0; i + 1 < clauseOffsets.length; ++i) {
+            out.writeVarint(clauseOffsets[i + 1] - clauseOffsets[i]);
+
+            for (int j = clauseOffsets[i]; j < clauseOffsets[i + 1]; ++j)
+                out.writeVarint(zigzag(literals[j]));
+        }
+    }
+
+    private static void writeMapping(VariableMapping mapping, int stringId, Output out) throws IOException {
+        VariableIndices indices = mapping.getSignature().getIndices();
+        MappingValue[] values = mapping.getMappingValues().toArray(MappingValue[]::new);
+
+        out.writeVarint(stringId);
+        out.writeVarint(indices.getThread() + 1);
+        out.writeVarint(indices.getInstance() + 1);
+        out.writeVarint(indices.getGeneration() + 1);
+        out.writeVarint(values.length);
+
+        for (MappingValue value : values) {
+            if (value == TrivialMappingValue.FALSE) {
+                out.writeVarint(0);
+            } else if (value == TrivialMappingValue.TRUE) {
+                out.writeVarint(1);
+            } else {
+                Literal literal = (Literal) value;
+                out.writeVarint(zigzag(literal.getValue() ? literal.getVariable() : -literal.getVariable()) + 1);
+            }
+        }
+    }
+
+    private static void writeScope(Scope scope, Output out) throws IOException {
+        int[] variables = scope.getVariables().toArray();
+        out.writeVarint(variables.length);
+
+        for (int v : variables)
+            out.writeVarint(v);
+    }
+
+    // list i contains all j with keys[j] == i, in ascending order
+    private static int[][] groupBy(IntArrayBuilder keys, int listCount) {
+        int[] sizes = new int[listCount];
+
+        for (int i = 0; i < keys.size(); ++i)
+            ++sizes[keys.get(i)];
+
+        int[][] lists = new int[listCount][];
+
+        for (int i = 0; i < listCount; ++i)
+            lists[i] = new int[sizes[i]];
+
+        Arrays.fill(sizes, 0);
+
+        for (int i = 0; i < keys.size(); ++i)
+            lists[keys.get(i)][sizes[keys.get(i)]++] = i;
+
+        return lists;
+    }
+
+    // writes the start of each list in the concatenation, followed by the total size, then the concatenation
+    private static int writeLists(int[][] lists, Output out) throws IOException {
+        int start = 0;
+
+        for (int[] list : lists) {
+            out.writeInt(start);
+            start += list.length;
+        }
+
+        out.writeInt(start);
+
+        for (int[] list : lists) {
+            for (int element : list)
+                out.writeInt(element);
+        }
+
+        return start;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static class Output {
+        private final OutputStream out;
+        private long position;
+
+        public Output(OutputStream out) {
+            this.out = out;
+        }
+
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++position;
+        }
+
+        public void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        public void writeInt(int value) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8)
+                write(value >>> shift);
+        }
+
+        public void writeLong(long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        public void writeVarint(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+
+            write(value);
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
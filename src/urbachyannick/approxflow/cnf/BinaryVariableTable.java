@@ -0,0 +1,243 @@
+package urbachyannick.approxflow.cnf;
+
+import urbachyannick.approxflow.Fail;
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Variable table of a file written by {@link BinaryCnfWriter}. Lookups search the index in the mapped file and decode
+ * only the strings and variable lines they need (once). Like {@link LazyVariableTable}, candidates are found by the
+ * hash of the key of the signature and then filtered by comparing the parsed signatures, so the results are the same
+ * as those of {@link EagerVariableTable}.
+ */
+public class BinaryVariableTable implements VariableTable {
+    private final SourceFile source;
+    private final MappedFile file;
+    private final int mappingCount;
+    private final int stringCount;
+    private final int arrayCount;
+
+    // positions of the index tables
+    private final long mappingPositions;
+    private final long stringPositions;
+    private final long stringKeys;
+    private final long stringListStarts;
+    private final long stringLists;
+    private final long arrayAddresses;
+    private final long arrayListStarts;
+    private final long arrayLists;
+
+    private final Signature[] strippedSignatures;
+    private final VariableMapping[] mappings;
+    private final SignatureParser signatureParser = new SignatureParser();
+    private Set<Long> arrayAddressSet;
+
+    BinaryVariableTable(SourceFile source, MappedFile file, int mappingCount, int stringCount, int arrayCount, int arrayElementCount, long indexPosition) {
+        this.source = source;
+        this.file = file;
+        this.mappingCount = mappingCount;
+        this.stringCount = stringCount;
+        this.arrayCount = arrayCount;
+
+        mappingPositions = indexPosition;
+        stringPositions = mappingPositions + 8L * (mappingCount + 1);
+        stringKeys = stringPositions + 8L * (stringCount + 1);
+        stringListStarts = stringKeys + 8L * stringCount;
+        stringLists = stringListStarts + 4L * (stringCount + 1);
+        arrayAddresses = stringLists + 4L * mappingCount;
+        arrayListStarts = arrayAddresses + 8L * arrayCount;
+        arrayLists = arrayListStarts + 4L * (arrayCount + 1);
+
+        if (arrayLists + 4L * arrayElementCount > file.size())
+            throw new Fail("Binary CNF file " + source.getPath() + " is truncated");
+
+        strippedSignatures = new Signature[stringCount];
+        mappings = new VariableMapping[mappingCount];
+    }
+
+    private void checkUnchanged() {
+        if (!source.isUnchanged())
+            throw new Fail("Binary CNF file " + source.getPath() + " changed after reading");
+    }
+
+    private Signature strippedSignature(int string) {
+        Signature signature = strippedSignatures[string];
+
+        if (signature != null)
+            return signature;
+
+        checkUnchanged();
+        long start = file.getLong(stringPositions + 8L * string);
+        long end = file.getLong(stringPositions + 8L * (string + 1));
+
+        try {
+            VarintReader in = new VarintReader(file, start, end);
+            signature = signatureParser.parse(new String(in.readBytes(in.readVarint()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new Fail("Invalid string in binary CNF file " + source.getPath(), e);
+        }
+
+        strippedSignatures[string] = signature;
+        return signature;
+    }
+
+    private VariableMapping mapping(int index) {
+        VariableMapping mapping = mappings[index];
+
+        if (mapping != null)
+            return mapping;
+
+        checkUnchanged();
+        long start = file.getLong(mappingPositions + 8L * index);
+        long end = file.getLong(mappingPositions + 8L * (index + 1));
+
+        try {
+            VarintReader in = new VarintReader(file, start, end);
+            Signature stripped = strippedSignature(in.readVarint());
+            VariableIndices indices = new VariableIndices(in.readVarint() - 1, in.readVarint() - 1, in.readVarint() - 1);
+            MappingValue[] values = new MappingValue[in.readVarint()];
+
+            for (int i = 0; i < values.length; ++i) {
+                int value = in.readVarint();
+
+                if (value == 0)
+                    values[i] = TrivialMappingValue.FALSE;
+                else if (value == 1)
+                    values[i] = TrivialMappingValue.TRUE;
+                else
+                    values[i] = new Literal(((value - 1) >>> 1) ^ -((value - 1) & 1));
+            }
+
+            mapping = new VariableMapping(indices.equals(VariableIndices.NONE) ? stripped : stripped.withIndices(indices), values);
+        } catch (IOException e) {
+            throw new Fail("Invalid variable line in binary CNF file " + source.getPath(), e);
+        }
+
+        mappings[index] = mapping;
+        return mapping;
+    }
+
+    // the ids of the strings equal to the signature (which has no indices) when parsed
+    private IntStream strings(Signature stripped) {
+        byte[] bytes = stripped.toString().getBytes(StandardCharsets.UTF_8);
+        int keyHash = LazyVariableTable.keyHash(bytes, 0, bytes.length);
+
+        // first key with this hash
+        int low = 0;
+        int high = stringCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (file.getLong(stringKeys + 8L * middle) < (long) keyHash << 32)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        int first = low;
+        int end = first;
+
+        while (end < stringCount && (int) (file.getLong(stringKeys + 8L * end) >> 32) == keyHash)
+            ++end;
+
+        return IntStream.range(first, end)
+                .map(i -> (int) file.getLong(stringKeys + 8L * i))
+                .filter(s -> strippedSignature(s).equals(stripped));
+    }
+
+    private IntStream mappingsOfString(int string) {
+        int start = file.getInt(stringListStarts + 4L * string);
+        int end = file.getInt(stringListStarts + 4L * (string + 1));
+        return IntStream.range(start, end).map(i -> file.getInt(stringLists + 4L * i));
+    }
+
+    // mappings of the signature (which has no indices), in the order of the file
+    private Stream<VariableMapping> matching(Signature stripped) {
+        return strings(stripped)
+                .flatMap(this::mappingsOfString)
+                .sorted()
+                .mapToObj(this::mapping);
+    }
+
+    private static Optional<VariableMapping> latest(Stream<VariableMapping> mappings) {
+        return mappings.reduce((a, b) -> VariableMapping.compareByGeneration(b, a) > 0 ? b : a);
+    }
+
+    @Override
+    public VariableMapping get(Signature signature) {
+        return matching(signature.stripIndices())
+                .filter(m -> m.getSignature().equals(signature))
+                .reduce((a, b) -> b)
+                .orElse(null);
+    }
+
+    @Override
+    public Stream<VariableMapping> getMappings() {
+        return IntStream.range(0, mappingCount).mapToObj(this::mapping);
+    }
+
+    @Override
+    public Stream<VariableMapping> getMatching(Signature signature) {
+        return matching(signature.stripIndices()).sorted(VariableMapping::compareByGeneration);
+    }
+
+    @Override
+    public Optional<VariableMapping> getLatest(Signature signature) {
+        return latest(matching(signature.stripIndices()));
+    }
+
+    @Override
+    public Set<Long> getArrayAddresses() {
+        if (arrayAddressSet == null) {
+            arrayAddressSet = Collections.unmodifiableSet(
+                    IntStream.range(0, arrayCount)
+                            .mapToObj(i -> file.getLong(arrayAddresses + 8L * i))
+                            .collect(Collectors.toSet())
+            );
+        }
+
+        return arrayAddressSet;
+    }
+
+    @Override
+    public SortedMap<Long, VariableMapping> getLatestArrayElements(long address) {
+        SortedMap<Long, VariableMapping> result = new TreeMap<>();
+
+        // binary search for the address
+        int low = 0;
+        int high = arrayCount;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (file.getLong(arrayAddresses + 8L * middle) < address)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        if (low == arrayCount || file.getLong(arrayAddresses + 8L * low) != address)
+            return Collections.unmodifiableSortedMap(result);
+
+        int start = file.getInt(arrayListStarts + 4L * low);
+        int end = file.getInt(arrayListStarts + 4L * (low + 1));
+
+        for (int i = start; i < end; ++i) {
+            int string = file.getInt(arrayLists + 4L * i);
+            long elementIndex = ((DynamicArraySignature) strippedSignature(string)).getElementIndex();
+            latest(mappingsOfString(string).mapToObj(this::mapping)).ifPresent(m -> result.put(elementIndex, m));
+        }
+
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    @Override
+    public Optional<VariableMapping> getLatestObjectField(long address, String fieldName) {
+        return getLatest(new DynamicObjectSignature(address, fieldName));
+    }
+}
@@ -0,0 +1,195 @@
+package urbachyannick.approxflow.cnf;
+
+import org.objectweb.asm.tree.ClassNode;
+import urbachyannick.approxflow.*;
+import urbachyannick.approxflow.cache.*;
+import urbachyannick.approxflow.codetransformation.ClassEncoder;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Decorator for a CNF generator that stores the generated problems in a {@link DiskCache}. The DIMACS file written by
+ * the generator is stored as it is, so storing it needs no parsing, and the input files of the model counters can still
+ * be written by copying it (see {@link SourceFile}). The binary format of {@link BinaryCnfWriter}, which is faster to
+ * read, is created from the DIMACS entry in the background on its first hit, and read instead on the following hits.
+ * Entries are hard linked into the temporary directory and read in place. The key covers the serialized bytes of all
+ * classes, the JBMC core models and the identity of the wrapped generator as given by its toString (which must
+ * therefore include all flags affecting the output).
+ */
+public class CachingCnfGenerator implements CnfGenerator {
+    public static final String NAMESPACE = "cnf";
+    public static final String BINARY_NAMESPACE = "acnf";
+
+    // a single low priority thread, as the conversions are not needed for the current analysis; conversions not
+    // finished when the process exits are done again on a later hit
+    private static final ExecutorService converter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cnf-cache-converter");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final CnfGenerator generator;
+    private final DiskCache cache;
+    private final Map<Path, String> fileHashes;
+    private final Set<String> convertedKeys;
+    private final boolean lazyVariableTable;
+
+    public CachingCnfGenerator(CnfGenerator generator, DiskCache cache) {
+        this(generator, cache, true);
+    }
+
+    /**
+     * @param lazyVariableTable whether the variable lines of cached files are only decoded when looked up
+     */
+    public CachingCnfGenerator(CnfGenerator generator, DiskCache cache, boolean lazyVariableTable) {
+        this.generator = generator;
+        this.cache = cache;
+        this.fileHashes = new ConcurrentHashMap<>();
+        this.convertedKeys = ConcurrentHashMap.newKeySet();
+        this.lazyVariableTable = lazyVariableTable;
+    }
+
+    @Override
+    public MappedProblem generate(Stream<ClassNode> classes, IOCallbacks ioCallbacks) throws CnfException {
+        List<ClassNode> classesList = classes.collect(Collectors.toList());
+        String key;
+
+        try {
+            key = key(classesList, ioCallbacks);
+        } catch (IOException e) {
+            throw new CnfException("Could not compute cache key", e);
+        }
+
+        try {
+            Optional<MappedProblem> cached = readCached(key, ioCallbacks);
+
+            if (cached.isPresent())
+                return cached.get();
+        } catch (IOException e) {
+            System.err.println("Warning: could not read cached CNF file: " + e.getMessage());
+        }
+
+        MappedProblem problem = generator.generate(classesList.stream(), ioCallbacks);
+
+        try {
+            Optional<SourceFile> source = problem.getSource().filter(SourceFile::isUnchanged);
+
+            if (source.isPresent()) {
+                cache.put(NAMESPACE, key, source.get().getPath());
+            } else { // not read from a file, so it has to be written
+                ioCallbacks.getMetrics().time("io", "writeCnf", () -> {
+                    cache.put(NAMESPACE, key, file -> IO.write(problem, file));
+                    return null;
+                });
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: could not store CNF file in cache: " + e.getMessage());
+        }
+
+        return problem;
+    }
+
+    private Optional<MappedProblem> readCached(String key, IOCallbacks ioCallbacks) throws IOException {
+        Optional<Path> dimacs = cache.getLinked(NAMESPACE, key, ioCallbacks.createTemporaryFile("jbmc-output-cached.cnf"));
+        Optional<Path> binary = cache.getLinked(BINARY_NAMESPACE, key, ioCallbacks.createTemporaryFile("jbmc-output-cached.acnf"));
+
+        if (binary.isPresent()) {
+            BinaryCnfReader reader = ioCallbacks.getMetrics().time("io", "readCnf", () -> new BinaryCnfReader(binary.get(), true).read());
+            VariableTable variableTable = reader.getVariableTable();
+
+            if (!lazyVariableTable)
+                variableTable = new EagerVariableTable(variableTable.getMappings());
+
+            SourceFile source = dimacs.isPresent() ? SourceFile.ofImmutable(dimacs.get()) : null;
+            return Optional.of(new MappedProblem(reader.getProblem(), variableTable, source));
+        }
+
+        if (!dimacs.isPresent())
+            return Optional.empty();
+
+        MappedProblem problem = ioCallbacks.getMetrics().time("io", "readCnf", () ->
+                new DimacsReader(dimacs.get(), lazyVariableTable, true).read().getMappedProblem()
+        );
+
+        convertInBackground(key, dimacs.get());
+        return Optional.of(problem);
+    }
+
+    private void convertInBackground(String key, Path dimacs) {
+        if (!convertedKeys.add(key))
+            return;
+
+        converter.execute(() -> {
+            try {
+                cache.put(BINARY_NAMESPACE, key, binary -> IO.convertToBinary(dimacs, binary));
+            } catch (NoSuchFileException e) { // the temporary directory was already deleted, so convert on a later hit
+                convertedKeys.remove(key);
+            } catch (IOException e) {
+                System.err.println("Warning: could not convert cached CNF file: " + e.getMessage());
+            }
+        });
+    }
+
+    private String key(List<ClassNode> classes, IOCallbacks ioCallbacks) throws IOException {
+        CacheKey key = new CacheKey()
+                .add("dimacs and binary cnf " + BinaryCnfWriter.MAGIC[BinaryCnfWriter.MAGIC.length - 1]) // entry formats
+                .add(generator.toString())
+                .add(toolsHash(ioCallbacks));
+
+        List<ClassNode> sorted = classes.stream()
+                .sorted(Comparator.comparing(c -> c.name))
+                .collect(Collectors.toList());
+
+        // the generator writes the same classes, so it reuses their bytes
+        ClassEncoder encoder = new ClassEncoder(classes);
+
+        for (ClassNode c : sorted) {
+            key.add(c.name);
+            key.add(encoder.encode(c));
+        }
+
+        return key.build();
+    }
+
+    /**
+     * Hash of the files the generated CNF depends on besides the classes: the JBMC core models, the jbmc binary and the
+     * approxflow jar (which contains the transformations).
+     */
+    public String toolsHash(IOCallbacks ioCallbacks) throws IOException {
+        CacheKey key = new CacheKey().add(hashFile(ioCallbacks.findInProgramDirectory(Paths.get("res/jbmc-core-models.jar"))));
+        Optional<Path> jbmc = FilesUtil.resolveFromPathVariable(Paths.get("jbmc"));
+
+        if (jbmc.isPresent())
+            key.add(hashFile(jbmc.get()));
+
+        Path jarPath = ioCallbacks.getJarPath();
+
+        if (Files.isRegularFile(jarPath))
+            key.add(hashFile(jarPath));
+
+        return key.build();
+    }
+
+    // hashes of the tool files, which do not change during a run, are only computed once
+    private String hashFile(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        String hash = fileHashes.get(absolute);
+
+        if (hash == null) {
+            hash = new CacheKey().addFile(absolute).build();
+            fileHashes.put(absolute, hash);
+        }
+
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingCnfGenerator(" + generator + ")";
+    }
+}
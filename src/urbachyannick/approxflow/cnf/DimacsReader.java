@@ -0,0 +1,602 @@
+package urbachyannick.approxflow.cnf;
+
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reads a DIMACS CNF file as written by JBMC in a single pass. Clauses, variable mappings (c lines) and the scope lines
+ * (c ind, c max) are all collected in the same scan. The file is tokenized directly on the bytes read from the channel,
+ * so no string is created per line except for the signatures of the variable mappings. By default, the variable
+ * mappings are not even parsed, but only located for a {@link LazyVariableTable}. Large files are split into chunks at
+ * line breaks, which are parsed in parallel.
+ */
+public class DimacsReader {
+    private static final int INITIAL_BUFFER_SIZE = 1 << 20;
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 24;
+    private static final long PARALLEL_THRESHOLD = 1L << 26;
+
+    private static final byte[] arrayPrefix = "symex_dynamic::dynamic_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] arraySuffix = "_array".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path path;
+    private final boolean lazyVariableTable;
+    private final boolean immutable;
+    private final SignatureParser signatureParser = new SignatureParser(); // shared by the chunks
+
+    private byte[] buffer;
+    private int position; // start of the first unconsumed byte in the buffer
+    private int limit; // end of the valid data in the buffer
+    private int scanned; // end of the bytes already searched for a line break
+    private boolean endOfInput;
+    private long bufferStart; // position of buffer[0] in the file
+
+    private SourceFile source;
+    private int declaredVariableCount = -1;
+    private int declaredClauseCount = -1;
+    private Chunk content;
+
+    public DimacsReader(Path path) {
+        this(path, true);
+    }
+
+    /**
+     * @param path the CNF file
+     * @param lazyVariableTable whether to create a {@link LazyVariableTable} instead of parsing all variable lines
+     */
+    public DimacsReader(Path path, boolean lazyVariableTable) {
+        this(path, lazyVariableTable, false);
+    }
+
+    /**
+     * @param path the CNF file
+     * @param lazyVariableTable whether to create a {@link LazyVariableTable} instead of parsing all variable lines
+     * @param immutable whether the file is never written in place (see {@link SourceFile#ofImmutable})
+     */
+    public DimacsReader(Path path, boolean lazyVariableTable, boolean immutable) {
+        this.path = path;
+        this.lazyVariableTable = lazyVariableTable;
+        this.immutable = immutable;
+    }
+
+    /**
+     * Reads the file, in parallel on the common fork-join pool if it is large and there is more than one core.
+     */
+    public DimacsReader read() throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        if (pool.getParallelism() > 1 && Files.size(path) >= PARALLEL_THRESHOLD)
+            return read(pool, PARALLEL_CHUNK_SIZE);
+
+        source = immutable ? SourceFile.ofImmutable(path) : SourceFile.of(path);
+        Chunk chunk = new Chunk(lazyVariableTable, signatureParser, 1 << 14);
+        buffer = new byte[INITIAL_BUFFER_SIZE];
+        position = 0;
+        limit = 0;
+        scanned = 0;
+        endOfInput = false;
+        bufferStart = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (chunk.error == null && nextLine(channel, chunk))
+                chunk.parseLine();
+        } finally {
+            buffer = null;
+        }
+
+        return finish(Collections.singletonList(chunk));
+    }
+
+    /**
+     * Reads the file in parallel. The file is split into chunks of whole lines, which are parsed independently and
+     * then concatenated, so the result is the same as that of a sequential read.
+     * @param pool the pool to parse the chunks on
+     * @param chunkSize the approximate size of a chunk in bytes
+     */
+    public DimacsReader read(ForkJoinPool pool, int chunkSize) throws IOException {
+        source = immutable ? SourceFile.ofImmutable(path) : SourceFile.of(path);
+        MappedFile file = new MappedFile(path);
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        long chunkStart = 0;
+
+        while (chunkStart < file.size()) {
+            long chunkEnd = Math.min(chunkStart + chunkSize, file.size());
+
+            // extend to the end of the line
+            while (chunkEnd < file.size() && file.get(chunkEnd - 1) != '\n')
+                ++chunkEnd;
+
+            long start = chunkStart;
+            int length = (int) (chunkEnd - chunkStart);
+            tasks.add(pool.submit(() -> parseChunk(file, start, length)));
+            chunkStart = chunkEnd;
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+
+        for (ForkJoinTask<Chunk> task : tasks)
+            chunks.add(task.join());
+
+        return finish(chunks);
+    }
+
+    private Chunk parseChunk(MappedFile file, long start, int length) {
+        Chunk chunk = new Chunk(lazyVariableTable, signatureParser, length / 16); // clause lines are rarely shorter
+        byte[] bytes = file.read(start, length);
+        int lineStart = 0;
+
+        while (lineStart < length && chunk.error == null) {
+            int lineEnd = indexOf(bytes, (byte) '\n', lineStart, length);
+
+            if (lineEnd < 0)
+                lineEnd = length;
+
+            chunk.setLine(bytes, start, lineStart, lineEnd);
+            chunk.parseLine();
+            lineStart = lineEnd + 1;
+        }
+
+        return chunk;
+    }
+
+    // concatenates the chunks and reports the first error, in the order of the file
+    private DimacsReader finish(List<Chunk> chunks) throws IOException {
+        content = chunks.isEmpty() ? new Chunk(lazyVariableTable, signatureParser, 0) : chunks.get(0); // empty file
+
+        for (Chunk chunk : chunks) {
+            chunk.buffer = null; // only needed while parsing
+
+            if (declaredVariableCount < 0 && chunk.hasProblemLine) {
+                if (chunk.problemLineError != null)
+                    throw chunk.problemLineError;
+
+                declaredVariableCount = chunk.variableCount;
+                declaredClauseCount = chunk.clauseCount;
+            }
+
+            if (chunk.error != null)
+                throw chunk.error;
+
+            if (chunk != content)
+                content.append(chunk);
+        }
+
+        if (declaredVariableCount < 0)
+            throw new IOException("Invalid CNF file format (missing problem line)");
+
+        if (content.clauseOffsets.size() - 1 != declaredClauseCount)
+            throw new IOException("Invalid CNF file format (incorrect clause count)");
+
+        return this;
+    }
+
+    public Problem getProblem() {
+        return new Problem(declaredVariableCount, content.clauseLiterals.toArray(), content.clauseOffsets.toArray());
+    }
+
+    public VariableTable getVariableTable() throws IOException {
+        if (lazyVariableTable)
+            return new LazyVariableTable(source, content.mappingOffsets.toArray(), content.mappingLengths.toArray(), content.mappingKeyHashes.toArray(), content.arrayAddresses);
+
+        return new EagerVariableTable(content.mappings.stream());
+    }
+
+    public MappedProblem getMappedProblem() throws IOException {
+        // a file that already has scope lines can not be used as the body of a counter input
+        return new MappedProblem(getProblem(), getVariableTable(), content.hasScopeLines ? null : source);
+    }
+
+    public Scope getCountVars() {
+        return new Scope(content.countVars.stream());
+    }
+
+    public Scope getMaxVars() {
+        return new Scope(content.maxVars.stream());
+    }
+
+    private boolean nextLine(FileChannel channel, Chunk chunk) throws IOException {
+        while (true) {
+            for (int i = scanned; i < limit; ++i) {
+                if (buffer[i] == '\n') {
+                    chunk.setLine(buffer, bufferStart, position, i);
+                    position = i + 1;
+                    scanned = position;
+                    return true;
+                }
+            }
+
+            scanned = limit;
+
+            if (endOfInput) {
+                if (position == limit)
+                    return false;
+
+                chunk.setLine(buffer, bufferStart, position, limit);
+                position = limit;
+                return true;
+            }
+
+            fill(channel);
+        }
+    }
+
+    private void fill(FileChannel channel) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferStart += position;
+            limit -= position;
+            scanned -= position;
+            position = 0;
+        }
+
+        if (limit == buffer.length) // a single line does not fit into the buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+
+        if (read < 0)
+            endOfInput = true;
+        else
+            limit += read;
+    }
+
+    /**
+     * The content of a range of lines. Parsing stops at the first error, which is only reported when the chunks are
+     * concatenated, so that the error reported is the first one in the file.
+     */
+    private static class Chunk {
+        private final boolean lazyVariableTable;
+        private final SignatureParser signatureParser;
+
+        private byte[] buffer;
+        private long bufferStart;
+        private int lineStart;
+        private int lineEnd;
+
+        // the first problem line of the chunk; only used if there is none in an earlier chunk
+        private boolean hasProblemLine;
+        private int variableCount;
+        private int clauseCount;
+        private IOException problemLineError;
+
+        private IOException error;
+        private boolean hasScopeLines;
+
+        private final IntArrayBuilder clauseLiterals;
+        private final IntArrayBuilder clauseOffsets;
+        private final List<VariableMapping> mappings = new ArrayList<>();
+        private final LongArrayBuilder mappingOffsets = new LongArrayBuilder();
+        private final IntArrayBuilder mappingLengths = new IntArrayBuilder();
+        private final IntArrayBuilder mappingKeyHashes = new IntArrayBuilder();
+        private final Set<Long> arrayAddresses = new HashSet<>();
+        private final IntArrayBuilder countVars = new IntArrayBuilder();
+        private final IntArrayBuilder maxVars = new IntArrayBuilder();
+
+        /**
+         * @param lazyVariableTable whether to only locate the variable lines
+         * @param signatureParser the parser for the signatures of the variable lines
+         * @param expectedClauseCount the initial capacity for clauses
+         */
+        public Chunk(boolean lazyVariableTable, SignatureParser signatureParser, int expectedClauseCount) {
+            this.lazyVariableTable = lazyVariableTable;
+            this.signatureParser = signatureParser;
+            clauseLiterals = new IntArrayBuilder(expectedClauseCount * 4);
+            clauseOffsets = new IntArrayBuilder(expectedClauseCount + 1);
+            clauseOffsets.add(0);
+        }
+
+        /**
+         * @param buffer the bytes containing the line
+         * @param bufferStart the position of buffer[0] in the file
+         * @param start the start of the line in the buffer
+         * @param end the end of the line in the buffer, excluding the line break
+         */
+        public void setLine(byte[] buffer, long bufferStart, int start, int end) {
+            if (end > start && buffer[end - 1] == '\r')
+                --end;
+
+            this.buffer = buffer;
+            this.bufferStart = bufferStart;
+            lineStart = start;
+            lineEnd = end;
+        }
+
+        public void parseLine() {
+            try {
+                parseCurrentLine();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        // appends the content of the following chunk
+        public void append(Chunk next) {
+            int literalOffset = clauseLiterals.size();
+            clauseLiterals.addAll(next.clauseLiterals);
+
+            for (int i = 1; i < next.clauseOffsets.size(); ++i)
+                clauseOffsets.add(literalOffset + next.clauseOffsets.get(i));
+
+            mappings.addAll(next.mappings);
+            mappingOffsets.addAll(next.mappingOffsets);
+            mappingLengths.addAll(next.mappingLengths);
+            mappingKeyHashes.addAll(next.mappingKeyHashes);
+            arrayAddresses.addAll(next.arrayAddresses);
+            countVars.addAll(next.countVars);
+            maxVars.addAll(next.maxVars);
+            hasScopeLines |= next.hasScopeLines;
+        }
+
+        private void parseCurrentLine() throws IOException {
+            if (lineStart == lineEnd)
+                return;
+
+            byte first = buffer[lineStart];
+
+            if (first == '-' || isDigit(first))
+                parseClause();
+            else if (startsWith("c ind "))
+                parseScope(lineStart + 6, countVars);
+            else if (startsWith("c max "))
+                parseScope(lineStart + 6, maxVars);
+            else if (startsWith("c "))
+                parseMapping();
+            else if (startsWith("p ") && !hasProblemLine)
+                parseProblemLine();
+        }
+
+        private void parseProblemLine() {
+            hasProblemLine = true;
+
+            if (!startsWith("p cnf ")) {
+                problemLineError = new IOException("Invalid CNF file format (invalid problem line)");
+                return;
+            }
+
+            int i = lineStart + 6;
+            int variablesEnd = skipDigits(i);
+            int clausesStart = variablesEnd + 1;
+            int clausesEnd = skipDigits(clausesStart);
+
+            if (variablesEnd == i || variablesEnd >= lineEnd || buffer[variablesEnd] != ' ' || clausesEnd == clausesStart || clausesEnd != lineEnd) {
+                problemLineError = new IOException("Invalid CNF file format (invalid problem line)");
+                return;
+            }
+
+            try {
+                variableCount = parseNonNegative(i, variablesEnd);
+                clauseCount = parseNonNegative(clausesStart, clausesEnd);
+            } catch (IOException e) {
+                problemLineError = e;
+            }
+        }
+
+        // Lines that are not of the form "(-?\d+ )+0" are ignored, just like the comment and problem lines.
+        private void parseClause() throws IOException {
+            int clauseStart = clauseLiterals.size();
+            int i = lineStart;
+
+            while (true) {
+                boolean negative = buffer[i] == '-';
+
+                if (negative)
+                    ++i;
+
+                int end = skipDigits(i);
+
+                if (end == i)
+                    break;
+
+                int value = parseNonNegative(i, end);
+
+                if (end == lineEnd) {
+                    if (value == 0 && !negative && clauseLiterals.size() > clauseStart) {
+                        clauseOffsets.add(clauseLiterals.size());
+                        return;
+                    }
+
+                    break;
+                }
+
+                if (buffer[end] != ' ' || value == 0)
+                    break;
+
+                clauseLiterals.add(negative ? -value : value);
+                i = end + 1;
+
+                if (i == lineEnd)
+                    break;
+            }
+
+            clauseLiterals.truncate(clauseStart);
+        }
+
+        private void parseScope(int start, IntArrayBuilder target) throws IOException {
+            hasScopeLines = true;
+            int i = start;
+
+            while (i < lineEnd) {
+                int end = skipDigits(i);
+
+                if (end == i || (end < lineEnd && buffer[end] != ' '))
+                    throw new IOException("Invalid CNF file format (invalid scope line)");
+
+                int variable = parseNonNegative(i, end);
+
+                if (variable == 0)
+                    return;
+
+                target.add(variable);
+                i = end + 1;
+            }
+        }
+
+        private void parseMapping() throws IOException {
+            int signatureStart = lineStart + 2;
+
+            if (!lazyVariableTable) {
+                mappings.add(DimacsReader.parseMapping(signatureParser, buffer, signatureStart, lineEnd));
+                return;
+            }
+
+            int signatureEnd = indexOf(buffer, (byte) ' ', signatureStart, lineEnd);
+
+            if (signatureEnd < 0)
+                throw new IOException("Invalid CNF file format (invalid variable mapping)");
+
+            mappingOffsets.add(bufferStart + signatureStart);
+            mappingLengths.add(lineEnd - signatureStart);
+            mappingKeyHashes.add(LazyVariableTable.keyHash(buffer, signatureStart, signatureEnd));
+            recordArrayAddress(signatureStart, signatureEnd);
+        }
+
+        // the lazy table needs to know all arrays without parsing the signatures
+        private void recordArrayAddress(int signatureStart, int signatureEnd) {
+            if (!regionStartsWith(buffer, signatureStart, signatureEnd, arrayPrefix))
+                return;
+
+            int addressStart = signatureStart + arrayPrefix.length;
+            int addressEnd = DimacsReader.skipDigits(buffer, addressStart, signatureEnd);
+
+            if (addressEnd == addressStart || addressEnd - addressStart > 18 || !regionStartsWith(buffer, addressEnd, signatureEnd, arraySuffix))
+                return;
+
+            long address = 0;
+
+            for (int i = addressStart; i < addressEnd; ++i)
+                address = address * 10 + (buffer[i] - '0');
+
+            arrayAddresses.add(address);
+        }
+
+        private int skipDigits(int start) {
+            return DimacsReader.skipDigits(buffer, start, lineEnd);
+        }
+
+        private int parseNonNegative(int start, int end) throws IOException {
+            return DimacsReader.parseNonNegative(buffer, start, end);
+        }
+
+        private boolean startsWith(String prefix) {
+            return regionEquals(buffer, lineStart, Math.min(lineStart + prefix.length(), lineEnd), prefix);
+        }
+    }
+
+    /**
+     * Parses a variable line.
+     * @param signatureParser the parser for the signature
+     * @param bytes the bytes containing the line
+     * @param start the start of the signature (after "c ")
+     * @param end the end of the line, excluding the line break
+     * @return the mapping
+     * @throws IOException if the line is invalid
+     */
+    static VariableMapping parseMapping(SignatureParser signatureParser, byte[] bytes, int start, int end) throws IOException {
+        int signatureEnd = indexOf(bytes, (byte) ' ', start, end);
+
+        if (signatureEnd < 0)
+            throw new IOException("Invalid CNF file format (invalid variable mapping)");
+
+        Signature signature = signatureParser.parse(new String(bytes, start, signatureEnd - start, StandardCharsets.UTF_8));
+        List<MappingValue> values = new ArrayList<>();
+        int i = signatureEnd + 1;
+
+        while (i < end) {
+            int valueEnd = indexOf(bytes, (byte) ' ', i, end);
+
+            if (valueEnd < 0)
+                valueEnd = end;
+
+            values.add(parseMappingValue(bytes, i, valueEnd));
+            i = valueEnd + 1;
+        }
+
+        return new VariableMapping(signature, values.toArray(new MappingValue[0]));
+    }
+
+    private static MappingValue parseMappingValue(byte[] bytes, int start, int end) throws IOException {
+        if (regionEquals(bytes, start, end, "TRUE"))
+            return TrivialMappingValue.TRUE;
+
+        if (regionEquals(bytes, start, end, "FALSE"))
+            return TrivialMappingValue.FALSE;
+
+        boolean negative = start < end && bytes[start] == '-';
+        int digitsStart = negative ? start + 1 : start;
+
+        if (digitsStart == end || skipDigits(bytes, digitsStart, end) != end)
+            throw new IOException("Invalid CNF file format (invalid variable mapping)");
+
+        int value = parseNonNegative(bytes, digitsStart, end);
+
+        if (value == 0)
+            throw new IOException("Invalid CNF file format (invalid variable mapping)");
+
+        return new Literal(negative ? -value : value);
+    }
+
+    private static int skipDigits(byte[] bytes, int start, int end) {
+        int i = start;
+
+        while (i < end && isDigit(bytes[i]))
+            ++i;
+
+        return i;
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            if (bytes[i] == b)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static int parseNonNegative(byte[] bytes, int start, int end) throws IOException {
+        long value = 0;
+
+        for (int i = start; i < end; ++i) {
+            value = value * 10 + (bytes[i] - '0');
+
+            if (value > Integer.MAX_VALUE)
+                throw new IOException("Invalid CNF file format (number out of range)");
+        }
+
+        return (int) value;
+    }
+
+    private static boolean regionStartsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length)
+            return false;
+
+        for (int i = 0; i < prefix.length; ++i) {
+            if (bytes[start + i] != prefix[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean regionEquals(byte[] bytes, int start, int end, String text) {
+        if (end - start != text.length())
+            return false;
+
+        for (int i = 0; i < text.length(); ++i) {
+            if (bytes[start + i] != text.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,95 @@
+package urbachyannick.approxflow.cnf;
+
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Variable table holding all mappings in memory. Besides the lookup of exact signatures, there are indexes built on
+ * construction for the lookups by signature without thread, instance and generation numbers.
+ */
+public class EagerVariableTable implements VariableTable {
+    private final Map<Signature, VariableMapping> map;
+    private final VariableMapping[] mappings;
+
+    private final Map<Signature, List<VariableMapping>> mappingsByStrippedSignature;
+    private final Map<Signature, VariableMapping> latestByStrippedSignature;
+    private final Map<Long, SortedMap<Long, VariableMapping>> latestArrayElementsByAddress;
+    private final Map<Long, Map<String, VariableMapping>> latestObjectFieldsByAddress;
+
+    public EagerVariableTable(Stream<VariableMapping> mappings) {
+        this.mappings = mappings.toArray(VariableMapping[]::new);
+
+        map = new HashMap<>();
+        mappingsByStrippedSignature = new HashMap<>();
+        latestByStrippedSignature = new HashMap<>();
+        latestArrayElementsByAddress = new HashMap<>();
+        latestObjectFieldsByAddress = new HashMap<>();
+
+        for (VariableMapping m : this.mappings) {
+            map.put(m.getSignature(), m);
+
+            Signature stripped = m.getSignature().stripIndices();
+            mappingsByStrippedSignature.computeIfAbsent(stripped, s -> new ArrayList<>(1)).add(m);
+
+            VariableMapping previous = latestByStrippedSignature.get(stripped);
+
+            if (previous != null && VariableMapping.compareByGeneration(m, previous) <= 0)
+                continue;
+
+            latestByStrippedSignature.put(stripped, m);
+
+            if (m.getSignature() instanceof DynamicArraySignature) {
+                DynamicArraySignature signature = (DynamicArraySignature) m.getSignature();
+                latestArrayElementsByAddress
+                        .computeIfAbsent(signature.getAddress(), a -> new TreeMap<>())
+                        .put(signature.getElementIndex(), m);
+            } else if (m.getSignature() instanceof DynamicObjectSignature) {
+                DynamicObjectSignature signature = (DynamicObjectSignature) m.getSignature();
+                latestObjectFieldsByAddress
+                        .computeIfAbsent(signature.getAddress(), a -> new HashMap<>())
+                        .put(signature.getFieldName(), m);
+            }
+        }
+
+        for (List<VariableMapping> l : mappingsByStrippedSignature.values())
+            l.sort(VariableMapping::compareByGeneration);
+    }
+
+    @Override
+    public VariableMapping get(Signature signature) {
+        return map.get(signature);
+    }
+
+    @Override
+    public Stream<VariableMapping> getMappings() {
+        return Arrays.stream(mappings);
+    }
+
+    @Override
+    public Stream<VariableMapping> getMatching(Signature signature) {
+        return mappingsByStrippedSignature.getOrDefault(signature.stripIndices(), Collections.emptyList()).stream();
+    }
+
+    @Override
+    public Optional<VariableMapping> getLatest(Signature signature) {
+        return Optional.ofNullable(latestByStrippedSignature.get(signature.stripIndices()));
+    }
+
+    @Override
+    public Set<Long> getArrayAddresses() {
+        return Collections.unmodifiableSet(latestArrayElementsByAddress.keySet());
+    }
+
+    @Override
+    public SortedMap<Long, VariableMapping> getLatestArrayElements(long address) {
+        SortedMap<Long, VariableMapping> elements = latestArrayElementsByAddress.get(address);
+        return elements == null ? Collections.emptySortedMap() : Collections.unmodifiableSortedMap(elements);
+    }
+
+    @Override
+    public Optional<VariableMapping> getLatestObjectField(long address, String fieldName) {
+        return Optional.ofNullable(latestObjectFieldsByAddress.getOrDefault(address, Collections.emptyMap()).get(fieldName));
+    }
+}
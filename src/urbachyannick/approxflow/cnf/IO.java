@@ -1,10 +1,13 @@
 package urbachyannick.approxflow.cnf;
 
 import urbachyannick.approxflow.FilesUtil;
-import urbachyannick.approxflow.javasignatures.Signature;
+import urbachyannick.approxflow.javasignatures.*;
 
 import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.*;
@@ -43,13 +46,14 @@ public class IO {
 
     public static VariableTable readVariableTable(Path path) throws IOException {
         Pattern space = Pattern.compile(" ");
+        SignatureParser signatureParser = new SignatureParser();
 
         Stream<VariableMapping> mappings = Files
                 .lines(path)
                 .filter(l -> l.startsWith("c ") && !l.startsWith("c ind "))
                 .map(l -> {
                     String[] parts = l.split(" ", 3);
-                    Signature signature = Signature.parse(parts[1]);
+                    Signature signature = signatureParser.parse(parts[1]);
                     Stream<MappingValue> values = space
                             .splitAsStream(parts[2])
                             .map(v ->
@@ -60,13 +64,20 @@ public class IO {
                     return new VariableMapping(signature, values);
                 });
 
-        return new VariableTable(mappings);
+        return new EagerVariableTable(mappings);
     }
 
     public static MappedProblem readMappedProblem(Path path) throws IOException {
-        Problem p = readProblem(path);
-        VariableTable v = readVariableTable(path);
-        return new MappedProblem(p, v);
+        return new DimacsReader(path).read().getMappedProblem();
+    }
+
+    /**
+     * @param path the CNF file
+     * @param lazyVariableTable whether variable lines are only parsed when looked up; the file must then stay unchanged
+     *                          while the problem is used
+     */
+    public static MappedProblem readMappedProblem(Path path, boolean lazyVariableTable) throws IOException {
+        return new DimacsReader(path, lazyVariableTable).read().getMappedProblem();
     }
 
     public static Scope readScopeLines(Path path, String prefix) throws IOException {
@@ -81,33 +92,77 @@ public class IO {
     }
 
     public static ModelCountingProblem readModelCountingProblem(Path path) throws IOException {
-        MappedProblem p = readMappedProblem(path);
-        Scope s = readScopeLines(path, "c ind ");
-        return new ModelCountingProblem(p, s);
+        DimacsReader reader = new DimacsReader(path).read();
+        return new ModelCountingProblem(reader.getMappedProblem(), reader.getCountVars());
     }
 
     public static MaxModelCountingProblem readMaxModelCountingProblem(Path path) throws IOException {
-        MappedProblem p = readMappedProblem(path);
-        Scope countVars = readScopeLines(path, "c ind ");
-        Scope maxVars = readScopeLines(path, "c max ");
+        DimacsReader reader = new DimacsReader(path).read();
+        MappedProblem p = reader.getMappedProblem();
+        Scope countVars = reader.getCountVars();
+        Scope maxVars = reader.getMaxVars();
 
-        if (maxVars.getVariables().findAny().isPresent())
+        if (!maxVars.isEmpty())
             return new MaxModelCountingProblem(p, countVars, maxVars);
         else
             return new ModelCountingProblem(p, countVars);
     }
 
+    public static MappedProblem readBinaryMappedProblem(Path path) throws IOException {
+        return new BinaryCnfReader(path).read().getMappedProblem();
+    }
+
+    public static MaxModelCountingProblem readBinaryMaxModelCountingProblem(Path path) throws IOException {
+        BinaryCnfReader reader = new BinaryCnfReader(path).read();
+        MappedProblem p = reader.getMappedProblem();
+
+        if (!reader.getMaxVars().isEmpty())
+            return new MaxModelCountingProblem(p, reader.getCountVars(), reader.getMaxVars());
+        else
+            return new ModelCountingProblem(p, reader.getCountVars());
+    }
+
+    public static void writeBinary(MappedProblem problem, Path path) throws IOException {
+        BinaryCnfWriter.write(problem, path);
+    }
+
+    public static void writeBinary(MaxModelCountingProblem problem, Path path) throws IOException {
+        BinaryCnfWriter.write(problem, path);
+    }
+
+    /**
+     * Converts a DIMACS file as written by JBMC or by this class (including c ind and c max lines) to the binary
+     * format of {@link BinaryCnfWriter}.
+     */
+    public static void convertToBinary(Path dimacs, Path binary) throws IOException {
+        DimacsReader reader = new DimacsReader(dimacs, false).read();
+        BinaryCnfWriter.write(reader.getMappedProblem(), reader.getCountVars(), reader.getMaxVars(), binary);
+    }
+
+    /**
+     * Converts a file in the binary format of {@link BinaryCnfWriter} to DIMACS, with c ind and c max lines for
+     * non-empty scopes.
+     */
+    public static void convertToDimacs(Path binary, Path dimacs) throws IOException {
+        BinaryCnfReader reader = new BinaryCnfReader(binary).read();
+        Stream<String> trailer = Stream.concat(
+                !reader.getCountVars().isEmpty() ? Stream.of(scopeLine(reader.getCountVars(), "c ind ")) : Stream.empty(),
+                !reader.getMaxVars().isEmpty() ? Stream.of(scopeLine(reader.getMaxVars(), "c max ")) : Stream.empty()
+        );
+
+        writeWithTrailer(reader.getMappedProblem(), dimacs, trailer);
+    }
+
     public static Stream<String> problemLines(Problem problem) {
         return Stream.concat(
                 Stream.of(String.format("p cnf %d %d", problem.getVariableCount(), problem.getClauseCount())),
-                problem
-                        .getClauses()
-                        .map(c -> c
-                                .getLiterals()
-                                .map(l -> Integer.toString((l.getValue() ? 1 : -1) * l.getVariable()))
-                                .collect(Collectors.joining(" "))
-                                + " 0"
-                        )
+                IntStream
+                        .range(0, problem.getClauseCount())
+                        .mapToObj(i -> {
+                            StringBuilder line = new StringBuilder();
+                            problem.getClauseLiterals(i).forEach(l -> line.append(l).append(' '));
+                            return line.append('0').toString();
+                        })
         );
     }
 
@@ -166,36 +221,69 @@ public class IO {
     }
 
     public static void write(ModelCountingProblem problem, Path path) throws IOException {
-        Stream<String> lines = Stream.of(
-                problemLines(problem.getProblem()),
-                variableTableLines(problem.getVariableTable()),
-                Stream.of(scopeLine(problem.getCountVars(), "c ind ")),
-                Stream.of(crLine(problem.getCountVars()))
-        ).flatMap(Function.identity());
+        writeWithTrailer(problem.getMappedProblem(), path, Stream.of(
+                scopeLine(problem.getCountVars(), "c ind "),
+                crLine(problem.getCountVars())
+        ));
 
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            FilesUtil.writeLines(writer, lines);
+        try (BufferedWriter writer = Files.newBufferedWriter(path.resolveSibling(path.getFileName() + ".scope"))) {
+            FilesUtil.writeLines(writer, problem.getCountVars().getVariables().mapToObj(Integer::toString));
         }
+    }
+
+    public static void write(MaxModelCountingProblem problem, Path path) throws IOException {
+        writeWithTrailer(problem.getMappedProblem(), path, Stream.of(
+                scopeLine(problem.getCountVars(), "c ind "),
+                scopeLine(problem.getMaxVars(), "c max ")
+        ));
 
         try (BufferedWriter writer = Files.newBufferedWriter(path.resolveSibling(path.getFileName() + ".scope"))) {
             FilesUtil.writeLines(writer, problem.getCountVars().getVariables().mapToObj(Integer::toString));
         }
     }
 
-    public static void write(MaxModelCountingProblem problem, Path path) throws IOException {
-        Stream<String> lines = Stream.of(
-                problemLines(problem.getProblem()),
-                variableTableLines(problem.getVariableTable()),
-                Stream.of(scopeLine(problem.getCountVars(), "c ind ")),
-                Stream.of(scopeLine(problem.getMaxVars(), "c max "))
-        ).flatMap(Function.identity());
+    /**
+     * Writes a mapped problem followed by additional lines. If the problem was read from a file that is still
+     * unchanged, that file is copied as a whole instead of serializing the clauses and variable table again.
+     */
+    private static void writeWithTrailer(MappedProblem problem, Path path, Stream<String> trailer) throws IOException {
+        Optional<SourceFile> source = problem
+                .getSource()
+                .filter(SourceFile::isUnchanged)
+                .filter(s -> !isSameFile(s.getPath(), path));
+
+        if (!source.isPresent()) {
+            Stream<String> lines = Stream.of(
+                    problemLines(problem.getProblem()),
+                    variableTableLines(problem.getVariableTable()),
+                    trailer
+            ).flatMap(Function.identity());
+
+            try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+                FilesUtil.writeLines(writer, lines);
+            }
+
+            return;
+        }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            FilesUtil.writeLines(writer, lines);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            boolean endsWithNewLine = source.get().transferTo(channel);
+
+            BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+
+            if (!endsWithNewLine)
+                writer.newLine();
+
+            FilesUtil.writeLines(writer, trailer);
+            writer.flush();
         }
+    }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(path.resolveSibling(path.getFileName() + ".scope"))) {
-            FilesUtil.writeLines(writer, problem.getCountVars().getVariables().mapToObj(Integer::toString));
+    private static boolean isSameFile(Path a, Path b) {
+        try {
+            return Files.exists(b) && Files.isSameFile(a, b);
+        } catch (IOException e) {
+            return false;
         }
     }
 }
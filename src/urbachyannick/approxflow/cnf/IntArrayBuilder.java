@@ -0,0 +1,66 @@
+package urbachyannick.approxflow.cnf;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Growable array of primitive ints. Used instead of boxed collections when reading large CNF files.
+ */
+public class IntArrayBuilder {
+    private int[] values;
+    private int size;
+
+    public IntArrayBuilder() {
+        this(16);
+    }
+
+    public IntArrayBuilder(int initialCapacity) {
+        values = new int[Math.max(initialCapacity, 1)];
+        size = 0;
+    }
+
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, values.length * 2);
+
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size)
+            throw new IndexOutOfBoundsException("Size " + newSize + " out of bounds for size " + size);
+
+        size = newSize;
+    }
+
+    public void addAll(IntArrayBuilder other) {
+        if (size + other.size > values.length)
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public IntStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+}
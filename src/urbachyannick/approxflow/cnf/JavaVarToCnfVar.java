@@ -1,6 +1,7 @@
 package urbachyannick.approxflow.cnf;
 
 import org.objectweb.asm.tree.*;
+import urbachyannick.approxflow.codetransformation.ClassHierarchy;
 import urbachyannick.approxflow.javasignatures.*;
 
 import java.util.*;
@@ -20,12 +21,10 @@ public class JavaVarToCnfVar {
     }
 
     public static Optional<VariableMapping> lastMapping(VariableTable varTable, Signature signature) {
-            return varTable
-                    .getMatching(signature)
-                    .max(VariableMapping::compareByGeneration);
+        return varTable.getLatest(signature);
     }
 
-    public static IntStream variablesForMethodReturnValues(List<ClassNode> classes, VariableTable variableTable, ClassNode owner, MethodNode method, int addressOffset) {
+    public static IntStream variablesForMethodReturnValues(ClassHierarchy classes, VariableTable variableTable, ClassNode owner, MethodNode method, int addressOffset) {
         TypeSpecifier returnType = getReturnType(method);
         TypeSpecifier[] argumentTypes = getArgumentTypes(method).toArray(TypeSpecifier[]::new);
 
@@ -40,7 +39,7 @@ public class JavaVarToCnfVar {
                 .flatMapToInt(JavaVarToCnfVar::variablesForMapping);
     }
 
-    public static IntStream variablesForStaticField(List<ClassNode> classes, VariableTable variableTable, ClassNode owner, FieldNode field, int addressOffset) {
+    public static IntStream variablesForStaticField(ClassHierarchy classes, VariableTable variableTable, ClassNode owner, FieldNode field, int addressOffset) {
         TypeSpecifier fieldType = getFieldType(field);
 
         Signature signature = new JavaSignature(
@@ -59,7 +58,7 @@ public class JavaVarToCnfVar {
                 .flatMapToInt(JavaVarToCnfVar::variablesForMapping);
     }
 
-    public static IntStream variablesForMethodParameter(List<ClassNode> classes, VariableTable variableTable, ClassNode owner, MethodNode method, int paramIndex, int addressOffset) {
+    public static IntStream variablesForMethodParameter(ClassHierarchy classes, VariableTable variableTable, ClassNode owner, MethodNode method, int paramIndex, int addressOffset) {
         TypeSpecifier returnType = getReturnType(method);
         TypeSpecifier[] argumentTypes = getArgumentTypes(method).toArray(TypeSpecifier[]::new);
 
@@ -85,17 +84,8 @@ public class JavaVarToCnfVar {
     }
 
     private static Stream<VariableMapping> mappingsForArray(VariableTable varTable, long address) {
-        // all lines of elements of the array with this address, grouped by the element index
-        Map<Long, List<VariableMapping>> elementLines = varTable.getMappings()
-                .filter(l -> (
-                        l.getSignature() instanceof DynamicArraySignature &&
-                        ((DynamicArraySignature) l.getSignature()).getAddress() == address
-                ))
-                .collect(Collectors.groupingBy(l -> ((DynamicArraySignature) l.getSignature()).getElementIndex()));
-
         // the last generation of each individual element index
-        return elementLines.values().stream()
-                .map(l -> l.stream().max(VariableMapping::compareByGeneration).get());
+        return varTable.getLatestArrayElements(address).values().stream();
     }
 
     private static class FieldMapping {
@@ -112,12 +102,10 @@ public class JavaVarToCnfVar {
         List<FieldMapping> mappings = new ArrayList<>();
 
         for (FieldNode field : class_.fields) {
-            DynamicObjectSignature signature = new DynamicObjectSignature(address, field.name);
-
-            Optional<VariableMapping> mapping = lastMapping(varTable, signature);
+            Optional<VariableMapping> mapping = varTable.getLatestObjectField(address, field.name);
 
             if (!mapping.isPresent()) {
-                System.err.println("Can not find variable line for " + signature.toString());
+                System.err.println("Can not find variable line for " + new DynamicObjectSignature(address, field.name));
                 break;
             }
 
@@ -127,7 +115,7 @@ public class JavaVarToCnfVar {
         return mappings.stream();
     }
 
-    private static Stream<VariableMapping> cascade(List<ClassNode> classes, VariableTable varTable, VariableMapping root, TypeSpecifier type, int addressOffset) {
+    private static Stream<VariableMapping> cascade(ClassHierarchy classes, VariableTable varTable, VariableMapping root, TypeSpecifier type, int addressOffset) {
         if (type.isPrimitive()) {
             return Stream.of(root);
         }
@@ -148,7 +136,7 @@ public class JavaVarToCnfVar {
 
         if (type instanceof ClassName) {
             ClassName className = (ClassName) type;
-            Optional<ClassNode> classNode = findClass(classes.stream(), className.asQualifiedName());
+            Optional<ClassNode> classNode = classes.findClass(className.asQualifiedName());
 
             if (!classNode.isPresent()) {
                 System.err.println("Can not find class " + className.asQualifiedName());
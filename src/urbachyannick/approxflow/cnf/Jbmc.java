@@ -1,7 +1,7 @@
 package urbachyannick.approxflow.cnf;
 
 import org.objectweb.asm.tree.ClassNode;
-import urbachyannick.approxflow.IOCallbacks;
+import urbachyannick.approxflow.*;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -13,12 +13,21 @@ import static urbachyannick.approxflow.codetransformation.BytecodeUtil.findClass
 public class Jbmc implements CnfGenerator {
 
     public Jbmc(boolean partialLoops, int unwind) {
+        this(partialLoops, unwind, true);
+    }
+
+    /**
+     * @param lazyVariableTable whether the output is read with a {@link LazyVariableTable}; does not affect the CNF
+     */
+    public Jbmc(boolean partialLoops, int unwind, boolean lazyVariableTable) {
         this.partialLoops = partialLoops;
         this.unwind = unwind;
+        this.lazyVariableTable = lazyVariableTable;
     }
 
     private final boolean partialLoops;
     private final int unwind;
+    private final boolean lazyVariableTable;
 
     @Override
     public MappedProblem generate(Stream<ClassNode> classes, IOCallbacks ioCallbacks) throws CnfException {
@@ -26,6 +35,7 @@ public class Jbmc implements CnfGenerator {
         Path jarPath = ioCallbacks.getJarPath();
 
         List<ClassNode> classesList = classes.collect(Collectors.toList());
+        Metrics metrics = ioCallbacks.getMetrics();
 
         Path classesPath;
         Path cnfFilePath;
@@ -33,7 +43,10 @@ public class Jbmc implements CnfGenerator {
         try {
             classesPath = ioCallbacks.createTemporaryDirectory("jbmc-input");
             cnfFilePath = ioCallbacks.createTemporaryFile("jbmc-output.cnf");
-            urbachyannick.approxflow.codetransformation.IO.writeAll(classesList.stream(), classesPath);
+            metrics.time("io", "writeClasses", () -> {
+                urbachyannick.approxflow.codetransformation.IO.writeAll(classesList.stream(), classesPath);
+                return null;
+            });
         } catch (IOException e) {
             throw new CnfException("Could not write classes to disk", e);
         }
@@ -61,6 +74,8 @@ public class Jbmc implements CnfGenerator {
             }
         }};
 
+        long start = System.nanoTime();
+
         try {
             ProcessBuilder.Redirect out = ProcessBuilder.Redirect.to(ioCallbacks.createTemporaryFile("jbmc-log.txt").toFile());
 
@@ -69,19 +84,26 @@ public class Jbmc implements CnfGenerator {
                     .redirectOutput(out)
                     .redirectError(out)
                     .start();
-            process.waitFor();
+            MiscUtil.waitForProcess(process);
 
             if (process.exitValue() != 0)
                 throw new CnfException("JBMC returned error code " + process.exitValue());
         } catch (IOException | InterruptedException e) {
             throw new CnfException("Failed to run JBMC");
+        } finally {
+            metrics.recordTime("process", "jbmc", System.nanoTime() - start);
         }
 
         try {
-            MappedProblem problem = IO.readMappedProblem(cnfFilePath);
+            MappedProblem problem = metrics.time("io", "readCnf", () -> IO.readMappedProblem(cnfFilePath, lazyVariableTable));
             return problem;
         } catch (IOException e) {
             throw new CnfException("Failed to read CNF file");
         }
     }
+
+    @Override
+    public String toString() {
+        return "Jbmc(partialLoops=" + partialLoops + ", unwind=" + unwind + ")";
+    }
 }
@@ -0,0 +1,201 @@
+package urbachyannick.approxflow.cnf;
+
+import urbachyannick.approxflow.Fail;
+import urbachyannick.approxflow.javasignatures.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Variable table that only parses the lines that are looked up. When reading the file, just the position of each line
+ * and the hash of a key is recorded. The key is a prefix of the signature that does not depend on the thread, instance
+ * and generation numbers, so all lines matching a signature have the same key:
+ * <ul>
+ *     <li>java::&lt;class&gt;.&lt;member&gt; for Java variables (i.e. all locals of a method share a key)</li>
+ *     <li>symex_dynamic::dynamic_&lt;address&gt;_array and symex_dynamic::dynamic_object&lt;address&gt; for the
+ *     elements of arrays and the fields of objects</li>
+ *     <li>the signature up to the first index for anything else</li>
+ * </ul>
+ * A lookup parses the lines with the same key hash from the memory mapped file (once) and filters them like
+ * {@link EagerVariableTable} would. The file must not change as long as the table is used.
+ */
+public class LazyVariableTable implements VariableTable {
+    private static final byte[] javaPrefix = "java::".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] dynamicPrefix = "symex_dynamic::".getBytes(StandardCharsets.US_ASCII);
+
+    private final SourceFile source;
+    private final MappedFile file;
+    private final long[] lineOffsets;
+    private final int[] lineLengths;
+    private final long[] sortedKeys; // key hash in the upper, line index in the lower 32 bits
+    private final Set<Long> arrayAddresses;
+    private final VariableMapping[] parsed;
+    private final SignatureParser signatureParser = new SignatureParser();
+
+    /**
+     * @param source the CNF file
+     * @param lineOffsets the position of the signature of each variable line in the file
+     * @param lineLengths the length of each variable line from the signature to the end (excluding the line break)
+     * @param keyHashes the {@link #keyHash} of the signature of each variable line
+     * @param arrayAddresses the addresses of all arrays with element lines
+     * @throws IOException if the file can not be mapped
+     */
+    public LazyVariableTable(SourceFile source, long[] lineOffsets, int[] lineLengths, int[] keyHashes, Set<Long> arrayAddresses) throws IOException {
+        this.source = source;
+        this.file = new MappedFile(source.getPath());
+        this.lineOffsets = lineOffsets;
+        this.lineLengths = lineLengths;
+        this.arrayAddresses = Collections.unmodifiableSet(new HashSet<>(arrayAddresses));
+        this.parsed = new VariableMapping[lineOffsets.length];
+
+        sortedKeys = new long[keyHashes.length];
+
+        for (int i = 0; i < keyHashes.length; ++i)
+            sortedKeys[i] = (long) keyHashes[i] << 32 | i;
+
+        Arrays.sort(sortedKeys);
+    }
+
+    /**
+     * @return the hash of the key of the signature in bytes[start] to bytes[end - 1]
+     */
+    public static int keyHash(byte[] bytes, int start, int end) {
+        int keyEnd;
+
+        if (startsWith(bytes, start, end, javaPrefix))
+            keyEnd = indexOfAny(bytes, start + javaPrefix.length, end, ":!@#");
+        else if (startsWith(bytes, start, end, dynamicPrefix))
+            keyEnd = indexOfAny(bytes, start + dynamicPrefix.length, end, "!@#[.");
+        else
+            keyEnd = indexOfAny(bytes, start, end, "!@#");
+
+        // FNV-1a
+        int hash = 0x811c9dc5;
+
+        for (int i = start; i < keyEnd; ++i) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x01000193;
+        }
+
+        return hash;
+    }
+
+    private static int keyHash(String signature) {
+        byte[] bytes = signature.getBytes(StandardCharsets.UTF_8);
+        return keyHash(bytes, 0, bytes.length);
+    }
+
+    private static boolean startsWith(byte[] bytes, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length)
+            return false;
+
+        for (int i = 0; i < prefix.length; ++i) {
+            if (bytes[start + i] != prefix[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int indexOfAny(byte[] bytes, int start, int end, String characters) {
+        for (int i = start; i < end; ++i) {
+            if (characters.indexOf(bytes[i]) >= 0)
+                return i;
+        }
+
+        return end;
+    }
+
+    private VariableMapping mapping(int line) {
+        VariableMapping mapping = parsed[line];
+
+        if (mapping != null)
+            return mapping;
+
+        if (!source.isUnchanged())
+            throw new Fail("CNF file " + source.getPath() + " changed after reading");
+
+        byte[] bytes = file.read(lineOffsets[line], lineLengths[line]);
+
+        try {
+            mapping = DimacsReader.parseMapping(signatureParser, bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new Fail("Invalid variable line in " + source.getPath(), e);
+        }
+
+        parsed[line] = mapping;
+        return mapping;
+    }
+
+    // all lines whose key has this hash, in the order of the file
+    private Stream<VariableMapping> bucket(int keyHash) {
+        long first = (long) keyHash << 32;
+        int index = Arrays.binarySearch(sortedKeys, first);
+
+        if (index < 0)
+            index = -index - 1;
+
+        int end = index;
+
+        while (end < sortedKeys.length && (int) (sortedKeys[end] >> 32) == keyHash)
+            ++end;
+
+        return Arrays.stream(sortedKeys, index, end).mapToObj(k -> mapping((int) k));
+    }
+
+    private static Optional<VariableMapping> latest(Stream<VariableMapping> mappings) {
+        return mappings.reduce((a, b) -> VariableMapping.compareByGeneration(b, a) > 0 ? b : a);
+    }
+
+    @Override
+    public VariableMapping get(Signature signature) {
+        return bucket(keyHash(signature.toString()))
+                .filter(m -> m.getSignature().equals(signature))
+                .reduce((a, b) -> b)
+                .orElse(null);
+    }
+
+    @Override
+    public Stream<VariableMapping> getMappings() {
+        return IntStream.range(0, parsed.length).mapToObj(this::mapping);
+    }
+
+    @Override
+    public Stream<VariableMapping> getMatching(Signature signature) {
+        Signature stripped = signature.stripIndices();
+
+        return bucket(keyHash(stripped.toString()))
+                .filter(m -> m.getSignature().stripIndices().equals(stripped))
+                .sorted(VariableMapping::compareByGeneration);
+    }
+
+    @Override
+    public Optional<VariableMapping> getLatest(Signature signature) {
+        Signature stripped = signature.stripIndices();
+
+        return latest(bucket(keyHash(stripped.toString())).filter(m -> m.getSignature().stripIndices().equals(stripped)));
+    }
+
+    @Override
+    public Set<Long> getArrayAddresses() {
+        return arrayAddresses;
+    }
+
+    @Override
+    public SortedMap<Long, VariableMapping> getLatestArrayElements(long address) {
+        Map<Long, List<VariableMapping>> elements = bucket(keyHash(new DynamicArraySignature(address, 0).toString()))
+                .filter(m -> m.getSignature() instanceof DynamicArraySignature && ((DynamicArraySignature) m.getSignature()).getAddress() == address)
+                .collect(Collectors.groupingBy(m -> ((DynamicArraySignature) m.getSignature()).getElementIndex()));
+
+        SortedMap<Long, VariableMapping> result = new TreeMap<>();
+        elements.forEach((index, mappings) -> result.put(index, latest(mappings.stream()).get()));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    @Override
+    public Optional<VariableMapping> getLatestObjectField(long address, String fieldName) {
+        return getLatest(new DynamicObjectSignature(address, fieldName));
+    }
+}
@@ -0,0 +1,50 @@
+package urbachyannick.approxflow.cnf;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive longs, see {@link IntArrayBuilder}.
+ */
+public class LongArrayBuilder {
+    private long[] values;
+    private int size;
+
+    public LongArrayBuilder() {
+        this(16);
+    }
+
+    public LongArrayBuilder(int initialCapacity) {
+        values = new long[Math.max(initialCapacity, 1)];
+        size = 0;
+    }
+
+    public void add(long value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, values.length * 2);
+
+        values[size++] = value;
+    }
+
+    public long get(int index) {
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void addAll(LongArrayBuilder other) {
+        if (size + other.size > values.length)
+            values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
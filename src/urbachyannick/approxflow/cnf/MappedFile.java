@@ -0,0 +1,83 @@
+package urbachyannick.approxflow.cnf;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Read-only memory mapping of a whole file. Files larger than the 2 GB a single buffer can map are mapped as several
+ * chunks.
+ */
+public class MappedFile {
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    public MappedFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+
+            for (int i = 0; i < chunks.length; ++i) {
+                long start = (long) i * CHUNK_SIZE;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte get(long position) {
+        if (position < 0 || position >= size)
+            throw new IndexOutOfBoundsException("Position " + position + " out of bounds for size " + size);
+
+        return chunks[(int) (position / CHUNK_SIZE)].get((int) (position % CHUNK_SIZE));
+    }
+
+    // big endian, like the numbers written by DataOutputStream
+    public int getInt(long position) {
+        int offset = (int) (position % CHUNK_SIZE);
+        MappedByteBuffer chunk = position >= 0 && position + 4 <= size ? chunks[(int) (position / CHUNK_SIZE)] : null;
+
+        if (chunk != null && offset + 4 <= chunk.limit())
+            return chunk.getInt(offset);
+
+        return ByteBuffer.wrap(read(position, 4)).getInt();
+    }
+
+    public long getLong(long position) {
+        int offset = (int) (position % CHUNK_SIZE);
+        MappedByteBuffer chunk = position >= 0 && position + 8 <= size ? chunks[(int) (position / CHUNK_SIZE)] : null;
+
+        if (chunk != null && offset + 8 <= chunk.limit())
+            return chunk.getLong(offset);
+
+        return ByteBuffer.wrap(read(position, 8)).getLong();
+    }
+
+    public byte[] read(long position, int length) {
+        if (position < 0 || length < 0 || position + length > size)
+            throw new IndexOutOfBoundsException("Range " + position + "+" + length + " out of bounds for size " + size);
+
+        byte[] result = new byte[length];
+        int copied = 0;
+
+        while (copied < length) {
+            long current = position + copied;
+            // duplicate, so that concurrent reads do not interfere through the position of the shared buffer
+            ByteBuffer chunk = chunks[(int) (current / CHUNK_SIZE)].duplicate();
+            int offset = (int) (current % CHUNK_SIZE);
+            int count = Math.min(length - copied, chunk.limit() - offset);
+
+            ((Buffer) chunk).position(offset);
+            chunk.get(result, copied, count);
+            copied += count;
+        }
+
+        return result;
+    }
+}
@@ -2,15 +2,27 @@ package urbachyannick.approxflow.cnf;
 
 import urbachyannick.approxflow.javasignatures.Signature;
 
+import java.util.Optional;
 import java.util.stream.*;
 
 public class MappedProblem {
     private final Problem problem;
     private final VariableTable variableTable;
+    private final SourceFile source;
 
     public MappedProblem(Problem problem, VariableTable variableTable) {
+        this(problem, variableTable, null);
+    }
+
+    /**
+     * @param problem the problem
+     * @param variableTable the variable table
+     * @param source the file containing exactly the problem and variable table, or null if there is none
+     */
+    public MappedProblem(Problem problem, VariableTable variableTable, SourceFile source) {
         this.problem = problem;
         this.variableTable = variableTable;
+        this.source = source;
     }
 
     public Problem getProblem() {
@@ -21,6 +33,10 @@ public class MappedProblem {
         return variableTable;
     }
 
+    public Optional<SourceFile> getSource() {
+        return Optional.ofNullable(source);
+    }
+
     public Stream<Clause> getClauses() {
         return problem.getClauses();
     }
@@ -3,31 +3,114 @@ package urbachyannick.approxflow.cnf;
 import java.util.*;
 import java.util.stream.*;
 
+/**
+ * A CNF problem. The clauses are stored in a flat array of DIMACS literals, the literals of clause i being
+ * literals[clauseOffsets[i]] to literals[clauseOffsets[i + 1] - 1]. Clause and Literal objects are only created on
+ * demand by {@link #getClauses()}.
+ */
 public class Problem {
     private final int variableCount;
-    private final Clause[] clauses;
-    private final Set<Integer> usedVariables;
+    private final int[] literals;
+    private final int[] clauseOffsets;
+    private final BitSet usedVariables;
 
     public Problem(int variableCount, Clause[] clauses) {
-        this.variableCount = variableCount;
-        this.clauses = Arrays.copyOf(clauses, clauses.length);
-        this.usedVariables = new HashSet<>();
-
-        for (Clause c : this.clauses)
-            c.getLiterals().forEach(l -> usedVariables.add(l.getVariable()));
+        this(variableCount, Arrays.stream(clauses));
     }
 
     public Problem(int variableCount, Stream<Clause> clauses) {
+        IntArrayBuilder literals = new IntArrayBuilder();
+        IntArrayBuilder clauseOffsets = new IntArrayBuilder();
+        clauseOffsets.add(0);
+
+        clauses.forEach(c -> {
+            c.getLiterals().forEach(l -> literals.add(l.getValue() ? l.getVariable() : -l.getVariable()));
+            clauseOffsets.add(literals.size());
+        });
+
         this.variableCount = variableCount;
-        this.clauses = clauses.toArray(Clause[]::new);
-        this.usedVariables = new HashSet<>();
+        this.literals = literals.toArray();
+        this.clauseOffsets = clauseOffsets.toArray();
+        this.usedVariables = collectUsedVariables(this.literals);
+    }
+
+    /**
+     * Creates a problem from flat arrays. The arrays are taken over without copying.
+     * @param variableCount the number of variables
+     * @param literals the DIMACS literals of all clauses, without the terminating zeros
+     * @param clauseOffsets the start index of each clause in literals, followed by literals.length
+     */
+    public Problem(int variableCount, int[] literals, int[] clauseOffsets) {
+        if (clauseOffsets.length == 0 || clauseOffsets[0] != 0 || clauseOffsets[clauseOffsets.length - 1] != literals.length)
+            throw new IllegalArgumentException("Invalid clause offsets.");
 
-        for (Clause c : this.clauses)
-            c.getLiterals().forEach(l -> usedVariables.add(l.getVariable()));
+        this.variableCount = variableCount;
+        this.literals = literals;
+        this.clauseOffsets = clauseOffsets;
+        this.usedVariables = collectUsedVariables(literals);
+    }
+
+    private static BitSet collectUsedVariables(int[] literals) {
+        BitSet used = new BitSet();
+
+        for (int literal : literals) {
+            if (literal == 0)
+                throw new IllegalArgumentException("Literal must not be 0.");
+
+            used.set(Math.abs(literal));
+        }
+
+        return used;
     }
 
     public Stream<Clause> getClauses() {
-        return Arrays.stream(clauses);
+        return IntStream.range(0, getClauseCount()).mapToObj(this::getClause);
+    }
+
+    public Clause getClause(int index) {
+        return new Clause(getClauseLiterals(index).mapToObj(Literal::new));
+    }
+
+    public IntStream getClauseLiterals(int index) {
+        return Arrays.stream(literals, clauseOffsets[index], clauseOffsets[index + 1]);
+    }
+
+    /**
+     * @return the literals of all clauses, each clause terminated by 0 as in DIMACS
+     */
+    public IntStream getDimacsLiterals() {
+        PrimitiveIterator.OfInt iterator = new PrimitiveIterator.OfInt() {
+            private int clause = 0;
+            private int literal = 0;
+
+            @Override
+            public boolean hasNext() {
+                return clause < getClauseCount();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                if (literal < clauseOffsets[clause + 1])
+                    return literals[literal++];
+
+                ++clause;
+                return 0;
+            }
+        };
+
+        return StreamSupport.intStream(Spliterators.spliterator(iterator, literals.length + getClauseCount(), Spliterator.ORDERED), false);
+    }
+
+    // the arrays themselves, for serialization
+    int[] getLiteralArray() {
+        return literals;
+    }
+
+    int[] getClauseOffsetArray() {
+        return clauseOffsets;
     }
 
     public IntStream getVariables() {
@@ -35,7 +118,7 @@ public class Problem {
     }
 
     public boolean isVariableUsed(int variable) {
-        return usedVariables.contains(variable);
+        return variable > 0 && usedVariables.get(variable);
     }
 
     public int getVariableCount() {
@@ -43,6 +126,10 @@ public class Problem {
     }
 
     public int getClauseCount() {
-        return clauses.length;
+        return clauseOffsets.length - 1;
+    }
+
+    public int getLiteralCount() {
+        return literals.length;
     }
 }
@@ -1,24 +1,52 @@
 package urbachyannick.approxflow.cnf;
 
-import java.util.Arrays;
+import java.util.*;
 import java.util.stream.IntStream;
 
+/**
+ * A set of (non-negative) variables, stored as a bit set. The variables are always in ascending order.
+ */
 public class Scope {
-    private final int[] variables;
+    private final BitSet variables;
 
     public Scope(int... variables) {
-        this.variables = Arrays.stream(variables).distinct().toArray();
+        this(Arrays.stream(variables));
     }
 
     public Scope(IntStream variables) {
-        this.variables = variables.distinct().toArray();
+        this.variables = new BitSet();
+        variables.forEach(this.variables::set);
+    }
+
+    public Scope(BitSet variables) {
+        this.variables = (BitSet) variables.clone();
     }
 
     public IntStream getVariables() {
-        return Arrays.stream(variables);
+        return variables.stream();
+    }
+
+    public int size() {
+        return variables.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return variables.isEmpty();
+    }
+
+    public boolean contains(int variable) {
+        return variable >= 0 && variables.get(variable);
     }
 
     public Scope except(Scope other) {
-        return new Scope(getVariables().filter(lhs -> other.getVariables().noneMatch(rhs -> lhs == rhs)));
+        BitSet result = (BitSet) variables.clone();
+        result.andNot(other.variables);
+        return new Scope(result);
+    }
+
+    public Scope union(Scope other) {
+        BitSet result = (BitSet) variables.clone();
+        result.or(other.variables);
+        return new Scope(result);
     }
 }
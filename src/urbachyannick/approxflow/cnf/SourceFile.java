@@ -0,0 +1,97 @@
+package urbachyannick.approxflow.cnf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+
+/**
+ * Reference to the CNF file a problem was read from. Allows writing the unchanged clauses and variable mappings by
+ * copying the file instead of serializing the problem again. The size and modification time at reading time are
+ * recorded so that a file that was overwritten in the meantime is not used. Files that are never written in place, but
+ * only replaced or deleted (like the entries of a cache), are instead identified by their file key, as their
+ * modification time may change without their content changing.
+ */
+public class SourceFile {
+    private final Path path;
+    private final long size;
+    private final FileTime lastModified;
+    private final boolean immutable;
+    private final Object fileKey;
+
+    public SourceFile(Path path, long size, FileTime lastModified) {
+        this(path, size, lastModified, false, null);
+    }
+
+    private SourceFile(Path path, long size, FileTime lastModified, boolean immutable, Object fileKey) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.immutable = immutable;
+        this.fileKey = fileKey;
+    }
+
+    public static SourceFile of(Path path) throws IOException {
+        return new SourceFile(path, Files.size(path), Files.getLastModifiedTime(path));
+    }
+
+    /**
+     * @param path a file that is never written in place
+     * @return a reference that stays valid when the modification time of the file changes, as long as the path refers
+     * to the same file; if the file system has no file keys, only the size is checked
+     */
+    public static SourceFile ofImmutable(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new SourceFile(path, attributes.size(), attributes.lastModifiedTime(), true, attributes.fileKey());
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isUnchanged() {
+        try {
+            if (immutable) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return attributes.size() == size && (fileKey == null || fileKey.equals(attributes.fileKey()));
+            }
+
+            return Files.size(path) == size && Files.getLastModifiedTime(path).equals(lastModified);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies the whole file to a channel.
+     * @param target the channel to copy to
+     * @return whether the copied content ends with a line break
+     * @throws IOException if the file could not be copied
+     */
+    public boolean transferTo(WritableByteChannel target) throws IOException {
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = 0;
+
+            while (position < size) {
+                long transferred = source.transferTo(position, size - position, target);
+
+                if (transferred <= 0)
+                    throw new IOException("CNF file " + path + " was truncated while copying");
+
+                position += transferred;
+            }
+
+            if (size == 0)
+                return true;
+
+            ByteBuffer last = ByteBuffer.allocate(1);
+            source.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+}
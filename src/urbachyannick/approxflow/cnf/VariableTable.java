@@ -6,33 +6,40 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
-public class VariableTable implements Function<Signature, VariableMapping> {
-    private final Map<Signature, VariableMapping> map;
-    private final VariableMapping[] mappings;
+/**
+ * The variable lines (c lines) of a CNF file, mapping signatures of program variables to SAT variables or constants.
+ * The latest mapping of a signature is the one with the highest generation; if there are several, the first one in the
+ * table.
+ */
+public interface VariableTable extends Function<Signature, VariableMapping> {
+    /**
+     * @return the mapping with exactly this signature, or null
+     */
+    VariableMapping get(Signature signature);
 
-    public VariableTable(Stream<VariableMapping> mappings) {
-        this.mappings = mappings.toArray(VariableMapping[]::new);
+    @Override
+    default VariableMapping apply(Signature signature) {
+        return get(signature);
+    }
 
-        map = new HashMap<>();
+    /**
+     * @return all mappings in the order of the file
+     */
+    Stream<VariableMapping> getMappings();
 
-        for (VariableMapping m : this.mappings)
-            map.put(m.getSignature(), m);
-    }
+    /**
+     * @return the mappings matching the signature, ordered by generation
+     */
+    Stream<VariableMapping> getMatching(Signature signature);
 
-    public VariableMapping get(Signature signature) {
-        return map.get(signature);
-    }
+    Optional<VariableMapping> getLatest(Signature signature);
 
-    @Override
-    public VariableMapping apply(Signature signature) {
-        return map.get(signature);
-    }
+    Set<Long> getArrayAddresses();
 
-    public Stream<VariableMapping> getMappings() {
-        return Arrays.stream(mappings);
-    }
+    /**
+     * @return the latest mapping of each element of the array with the address, by element index
+     */
+    SortedMap<Long, VariableMapping> getLatestArrayElements(long address);
 
-    public Stream<VariableMapping> getMatching(Signature signature) {
-        return Arrays.stream(mappings).filter(m -> m.getSignature().matches(signature));
-    }
+    Optional<VariableMapping> getLatestObjectField(long address, String fieldName);
 }
@@ -0,0 +1,70 @@
+package urbachyannick.approxflow.cnf;
+
+import java.io.IOException;
+
+/**
+ * Sequential reader of the varints written by {@link BinaryCnfWriter}, from a range of a mapped file. The range is
+ * copied in blocks, so reading does not go through the mapping byte by byte.
+ */
+class VarintReader {
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private final MappedFile file;
+    private final long end;
+    private long blockStart;
+    private byte[] block = new byte[0];
+    private int position;
+
+    /**
+     * @param file the file
+     * @param start the position of the first varint
+     * @param end the end of the range that may be read
+     */
+    public VarintReader(MappedFile file, long start, long end) {
+        this.file = file;
+        this.end = end;
+        this.blockStart = start;
+    }
+
+    public int readVarint() throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Invalid binary CNF file (varint too long)");
+    }
+
+    public int readZigzag() throws IOException {
+        int value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public byte[] readBytes(int length) throws IOException {
+        byte[] result = new byte[length];
+
+        for (int i = 0; i < length; ++i)
+            result[i] = (byte) readByte();
+
+        return result;
+    }
+
+    private int readByte() throws IOException {
+        if (position == block.length) {
+            blockStart += block.length;
+
+            if (blockStart >= end)
+                throw new IOException("Invalid binary CNF file (unexpected end of section)");
+
+            block = file.read(blockStart, (int) Math.min(BLOCK_SIZE, end - blockStart));
+            position = 0;
+        }
+
+        return block[position++] & 0xff;
+    }
+}
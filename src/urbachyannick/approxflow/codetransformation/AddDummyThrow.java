@@ -3,7 +3,7 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
 
-import java.util.stream.Stream;
+import java.util.Arrays;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.findMainMethod;
 
@@ -11,7 +11,7 @@ import static urbachyannick.approxflow.codetransformation.BytecodeUtil.findMainM
  * Adds an assert(false) before every return statement in the main method to force jbmc to output a cnf file.
  * For some reason this doesn't seem to work if externalized into a method.
  */
-public class AddDummyThrow implements Transformation {
+public class AddDummyThrow extends Transformation.PerClassEdit {
     public static InsnList dummyThrow() {
         return new InsnList() {{
             add(new TypeInsnNode(Opcodes.NEW, "java/lang/AssertionError")); // allocate error
@@ -27,13 +27,10 @@ public class AddDummyThrow implements Transformation {
     }
 
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> sourceClasses) {
-        return sourceClasses.map(sourceClass -> {
-            ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-            sourceClass.accept(targetClass);
-            findMainMethod(targetClass).ifPresent(this::addDummyThrow);
-            return targetClass;
-        });
+    protected void applyToClass(ClassEdit class_) {
+        findMainMethod(class_.get())
+                .filter(m -> Arrays.stream(m.instructions.toArray()).anyMatch(n -> n.getOpcode() == Opcodes.RETURN))
+                .ifPresent(m -> addDummyThrow(class_.editMethod(m)));
     }
 
     private void addDummyThrow(MethodNode method) {
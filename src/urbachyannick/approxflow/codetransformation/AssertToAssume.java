@@ -3,21 +3,14 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.*;
 
-import java.util.stream.Stream;
-
-public class AssertToAssume implements Transformation {
+public class AssertToAssume extends Transformation.PerClassEdit {
 
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> sourceClasses) {
-        return sourceClasses.map(sourceClass -> {
-            ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-            sourceClass.accept(targetClass);
-
-            for (MethodNode m : targetClass.methods)
-                applyToMethod(m);
-
-            return targetClass;
-        });
+    protected void applyToClass(ClassEdit class_) {
+        for (MethodNode m : class_.get().methods) {
+            if (findAssertionErrorThrow(m.instructions.getFirst()) != null)
+                applyToMethod(class_.editMethod(m));
+        }
     }
 
     private void applyToMethod(MethodNode method) {
@@ -2,22 +2,12 @@ package urbachyannick.approxflow.codetransformation;
 
 import org.objectweb.asm.tree.*;
 import urbachyannick.approxflow.cnf.*;
-import urbachyannick.approxflow.javasignatures.*;
 
-import java.util.*;
-import java.util.stream.*;
+import java.util.function.IntConsumer;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class BlackboxIntermediateOutput implements Scanner<IntStream> {
-
-    private static class Parameter {
-        public MethodNode method;
-        public int parameterIndex;
-        public TypeSpecifier parameterType;
-        public List<TypeSpecifier> parameterTypes;
-        public TypeSpecifier returnType;
-    }
+public class BlackboxIntermediateOutput extends Scanner.PerClass {
 
     private final OffsetMarker offsetMarker;
 
@@ -26,39 +16,23 @@ public class BlackboxIntermediateOutput implements Scanner<IntStream> {
     }
 
     @Override
-    public IntStream scan(Stream<ClassNode> sourceClasses, MappedProblem problem) {
-
-        List<ClassNode> classes = sourceClasses.collect(Collectors.toList());
-
-        int addressOffset = offsetMarker.getAddressOffset(problem.getVariableTable());
-
-        return classes.stream().flatMapToInt(sourceClass ->
-                sourceClass.methods.stream()
-                        .filter(m -> hasAnnotation(m.visibleAnnotations, "Lurbachyannick/approxflow/$$BlackboxOutput;"))
-                        .flatMap(m -> {
-                            List<TypeSpecifier> methodParameterTypes = getArgumentTypes(m).collect(Collectors.toList());
-                            TypeSpecifier methodReturnType = getReturnType(m);
-
-                            return IntStream
-                                    .range(0, methodParameterTypes.size())
-                                    .mapToObj(i ->
-                                            new Parameter() {{
-                                                method = m;
-                                                parameterIndex = i;
-                                                parameterType = methodParameterTypes.get(i);
-                                                parameterTypes = methodParameterTypes;
-                                                returnType = methodReturnType;
-                                            }}
-                                    );
-                        })
-                        .flatMapToInt(parameter -> JavaVarToCnfVar.variablesForMethodParameter(
-                                classes,
-                                problem.getVariableTable(),
-                                sourceClass,
-                                parameter.method,
-                                parameter.parameterIndex,
-                                addressOffset
-                        ))
-        );
+    public void scanClass(ClassHierarchy classes, ClassNode sourceClass, MappedProblem problem, IntConsumer variables) {
+        for (MethodNode method : sourceClass.methods) {
+            if (!hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/$$BlackboxOutput;"))
+                continue;
+
+            long parameterCount = getArgumentTypes(method).count();
+
+            for (int i = 0; i < parameterCount; ++i) {
+                JavaVarToCnfVar.variablesForMethodParameter(
+                        classes,
+                        problem.getVariableTable(),
+                        sourceClass,
+                        method,
+                        i,
+                        offsetMarker.getAddressOffset(problem)
+                ).forEach(variables);
+            }
+        }
     }
 }
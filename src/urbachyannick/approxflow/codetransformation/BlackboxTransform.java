@@ -9,7 +9,7 @@ import java.util.stream.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class BlackboxTransform implements Transformation {
+public class BlackboxTransform extends Transformation.WithHierarchy {
     private final int callIndex;
 
     public BlackboxTransform(int callIndex) {
@@ -17,12 +17,11 @@ public class BlackboxTransform implements Transformation {
     }
 
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> classes) throws InvalidTransformationException {
-        List<ClassNode> classList = classes.collect(Collectors.toList());
+    public Stream<ClassNode> apply(ClassHierarchy classes) throws InvalidTransformationException {
         Stream.Builder<ClassNode> streamBuilder = Stream.builder();
 
-        for (ClassNode sourceClass : classList) {
-            streamBuilder.accept(applyToClass(sourceClass, classList));
+        for (ClassNode sourceClass : classes.getClasses()) {
+            streamBuilder.accept(applyToClass(sourceClass, classes));
         }
 
         streamBuilder.accept(blackboxCounterClass());
@@ -30,7 +29,7 @@ public class BlackboxTransform implements Transformation {
         return streamBuilder.build();
     }
 
-    private ClassNode applyToClass(ClassNode sourceClass, List<ClassNode> sourceClasses) throws InvalidTransformationException {
+    private ClassNode applyToClass(ClassNode sourceClass, ClassHierarchy sourceClasses) throws InvalidTransformationException {
         ClassNode targetClass = new ClassNode(Opcodes.ASM5);
         sourceClass.accept(targetClass);
 
@@ -46,7 +45,7 @@ public class BlackboxTransform implements Transformation {
         return targetClass;
     }
 
-    private void applyToMainMethod(MethodNode mainMethod, List<ClassNode> sourceClasses) {
+    private void applyToMainMethod(MethodNode mainMethod, ClassHierarchy sourceClasses) {
 
     }
 
@@ -69,7 +68,7 @@ public class BlackboxTransform implements Transformation {
         return class_;
     }
 
-    private void applyToBlackboxMethod(ClassNode class_, MethodNode method, List<ClassNode> sourceClasses) throws InvalidTransformationException {
+    private void applyToBlackboxMethod(ClassNode class_, MethodNode method, ClassHierarchy sourceClasses) throws InvalidTransformationException {
         String parameterOutputMethodName = "$$" + method.name + "$$paramout";
 
         List<TypeSpecifier> argumentTypes = getArgumentTypes(method).collect(Collectors.toList());
@@ -118,7 +117,7 @@ public class BlackboxTransform implements Transformation {
             add(new JumpInsnNode(Opcodes.IF_ICMPGE, elseLabel));
 
             // then
-            add(Nondet.generateNondetRecursive(returnType, sourceClasses.stream()));
+            add(Nondet.generateNondetRecursive(returnType, sourceClasses));
             add(new InsnNode(returnType.asPrimitive().getReturnOpcode()));
 
             // else
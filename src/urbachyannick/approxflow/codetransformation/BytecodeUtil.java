@@ -8,8 +8,6 @@ import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.*;
 
-import static urbachyannick.approxflow.MiscUtil.append;
-
 public class BytecodeUtil {
     private static final Map<Integer, Integer> jumpInversions = new HashMap<Integer, Integer>() {
         void putSymmetric(Integer left, Integer right) {
@@ -158,21 +156,6 @@ public class BytecodeUtil {
         return Optional.empty();
     }
 
-    public static Optional<MethodNode> findMethod(ClassNode class_, String owner, String name, String desc) {
-        if (!owner.equals(class_.name))
-            return Optional.empty();
-
-        return class_.methods.stream()
-                .filter(m -> m.name.equals(name) && m.desc.equals(desc))
-                .findFirst();
-    }
-
-    public static Optional<ClassNode> findClass(Stream<ClassNode> classes, String name) {
-        return classes
-                .filter(c -> c.name.equals(name))
-                .findFirst();
-    }
-
     public static boolean hasBody(MethodNode method) {
         return !(hasFlag(method.access, Opcodes.ACC_ABSTRACT) || hasFlag(method.access, Opcodes.ACC_NATIVE));
     }
@@ -185,15 +168,6 @@ public class BytecodeUtil {
         return Arrays.stream(PrimitiveType.values()).anyMatch(t -> t.getLoadLocalOpcode() == opcode);
     }
 
-    public static Stream<ClassNode> findDerived(ClassNode ancestor, List<ClassNode> classes) {
-        return append(
-                classes.stream()
-                    .filter(c -> ancestor.name.equals(c.superName))
-                    .flatMap(c -> findDerived(c, classes)),
-                ancestor
-        );
-    }
-
     // copy [start, end) and insert behind target
     // returns end label
     public static LabelNode copyRange(InsnList instructions, AbstractInsnNode start, AbstractInsnNode end, AbstractInsnNode target) {
@@ -0,0 +1,164 @@
+package urbachyannick.approxflow.codetransformation;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+
+/**
+ * Copy on write access to a class, for transformations. Instead of copying every class, a transformation reads the
+ * source class through {@link #get} and declares what it is about to modify: {@link #edit} for the class itself (e.g.
+ * to add fields or methods), {@link #editMethod} and {@link #editField} for a single method or field. Only then is the
+ * class copied, and only shallowly: the copy has its own lists, but shares all fields and methods that were not edited
+ * with the source. Unchanged classes and methods are thereby shared between the stages of an analysis, so nothing
+ * obtained through {@link #get} may be modified, and nodes that may be shared must only be visited through
+ * {@link #accept}.
+ * <p>
+ * Visiting a method writes to its labels, so a shared method must not be visited concurrently (e.g. by the stages of the
+ * blackbox analysis). Visitors therefore lock each method node while visiting it, and only that one, so different
+ * methods are still visited in parallel. Code that visits instructions of another method while visiting one (like
+ * {@link InlineMethods}) locks that method too, and must not run concurrently with other such code.
+ */
+public class ClassEdit {
+
+    private final ClassNode source;
+    private ClassNode target;
+
+    // the copies of edited (and the added) methods and fields, which may be modified, by the source method or field and
+    // by themselves
+    private final Map<Object, Object> editable = new IdentityHashMap<>();
+
+    public ClassEdit(ClassNode source) {
+        this.source = source;
+    }
+
+    /**
+     * @return the class as edited so far (the source class if nothing was edited); must not be modified
+     */
+    public ClassNode get() {
+        return target != null ? target : source;
+    }
+
+    /**
+     * @return the class, copied if it has not been yet; only its own properties and lists may be modified, not the
+     * fields and methods in them (see {@link #editMethod} and {@link #editField})
+     */
+    public ClassNode edit() {
+        if (target != null)
+            return target;
+
+        target = new ClassNode(Opcodes.ASM5);
+
+        source.accept(new ClassVisitor(Opcodes.ASM9, target) {
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return null;
+            }
+        });
+
+        target.fields.addAll(source.fields);
+        target.methods.addAll(source.methods);
+        return target;
+    }
+
+    public boolean isModified() {
+        return target != null;
+    }
+
+    /**
+     * @param method a method of the class
+     * @return the method, copied if it has not been yet, which may be modified
+     */
+    public MethodNode editMethod(MethodNode method) {
+        MethodNode edited = (MethodNode) editable.get(method);
+
+        if (edited != null)
+            return edited;
+
+        List<MethodNode> methods = edit().methods;
+        int index = methods.indexOf(method);
+
+        if (index < 0)
+            throw new IllegalArgumentException("Method " + method.name + " is not in class " + target.name);
+
+        ClassNode copy = new ClassNode(Opcodes.ASM5);
+        accept(method, copy);
+
+        MethodNode result = copy.methods.get(0);
+        methods.set(index, result);
+        editable.put(method, result);
+        editable.put(result, result);
+        return result;
+    }
+
+    /**
+     * @param field a field of the class
+     * @return the field, copied if it has not been yet, which may be modified
+     */
+    public FieldNode editField(FieldNode field) {
+        FieldNode edited = (FieldNode) editable.get(field);
+
+        if (edited != null)
+            return edited;
+
+        List<FieldNode> fields = edit().fields;
+        int index = fields.indexOf(field);
+
+        if (index < 0)
+            throw new IllegalArgumentException("Field " + field.name + " is not in class " + target.name);
+
+        ClassNode copy = new ClassNode(Opcodes.ASM5);
+        field.accept(copy);
+
+        FieldNode result = copy.fields.get(0);
+        fields.set(index, result);
+        editable.put(field, result);
+        editable.put(result, result);
+        return result;
+    }
+
+    /**
+     * Adds a new method, which may still be modified afterwards.
+     */
+    public void addMethod(MethodNode method) {
+        edit().methods.add(method);
+        editable.put(method, method);
+    }
+
+    /**
+     * Adds a new field, which may still be modified afterwards.
+     */
+    public void addField(FieldNode field) {
+        edit().fields.add(field);
+        editable.put(field, field);
+    }
+
+    public static void accept(ClassNode class_, ClassVisitor visitor) {
+        // everything but the methods only reads the class; the methods are visited last, like in ClassNode.accept
+        class_.accept(new ClassVisitor(Opcodes.ASM9, visitor) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return null;
+            }
+
+            @Override
+            public void visitEnd() {
+                for (MethodNode method : class_.methods)
+                    ClassEdit.accept(method, visitor);
+
+                super.visitEnd();
+            }
+        });
+    }
+
+    public static void accept(MethodNode method, ClassVisitor visitor) {
+        synchronized (method) {
+            method.accept(visitor);
+        }
+    }
+}
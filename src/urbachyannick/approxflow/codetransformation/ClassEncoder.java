@@ -0,0 +1,228 @@
+package urbachyannick.approxflow.codetransformation;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.ClassNode;
+import urbachyannick.approxflow.cache.CacheKey;
+
+import java.util.*;
+
+/**
+ * Serializes the classes of one program, with maximum stack sizes and stack map frames computed. As this is expensive
+ * and the stages of the blackbox analysis share most of their classes (shared through ClassEdit, or copied but unchanged),
+ * the bytes are cached, both for the class node (which must therefore not be modified after it is encoded) and for its
+ * content, so each distinct class is only encoded once per run. Frames are computed with the class hierarchy looked up
+ * in the program's classes first, and only then through the class loader.
+ */
+public class ClassEncoder {
+    // total size of the cached contents and bytes, after which the least recently used are dropped
+    private static final long maxCacheSize = 64L << 20;
+
+    private static final Map<ClassNode, Encoded> byNode = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final Map<Content, byte[]> byContent = new LinkedHashMap<Content, byte[]>(16, 0.75f, true) {
+        private long size;
+
+        @Override
+        public byte[] put(Content key, byte[] value) {
+            size += key.bytes.length + value.length;
+            byte[] previous = super.put(key, value);
+
+            if (previous != null)
+                size -= key.bytes.length + previous.length;
+
+            return previous;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Content, byte[]> eldest) {
+            if (size <= maxCacheSize)
+                return false;
+
+            size -= eldest.getKey().bytes.length + eldest.getValue().length;
+            return true;
+        }
+    };
+
+    private static class Encoded {
+        public final String hierarchyKey;
+        public final byte[] bytes;
+
+        public Encoded(String hierarchyKey, byte[] bytes) {
+            this.hierarchyKey = hierarchyKey;
+            this.bytes = bytes;
+        }
+    }
+
+    // the class without frames and maximums (which are computed when encoding), within a hierarchy
+    private static class Content {
+        public final String hierarchyKey;
+        public final byte[] bytes;
+        private final int hash;
+
+        public Content(String hierarchyKey, byte[] bytes) {
+            this.hierarchyKey = hierarchyKey;
+            this.bytes = bytes;
+            hash = 31 * hierarchyKey.hashCode() + Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Content))
+                return false;
+
+            Content other = (Content) o;
+            return hash == other.hash && hierarchyKey.equals(other.hierarchyKey) && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final Map<String, ClassNode> classesByName;
+    private final String hierarchyKey;
+
+    public ClassEncoder(List<ClassNode> classes) {
+        classesByName = new HashMap<>();
+        classes.forEach(c -> classesByName.put(c.name, c));
+
+        // the frames of a class depend on the super types of the classes it uses, so the cached bytes are only valid for
+        // programs with the same hierarchy
+        CacheKey key = new CacheKey();
+
+        classes.stream().sorted(Comparator.comparing(c -> c.name)).forEach(c -> key
+                .add(c.name)
+                .add(c.superName == null ? "" : c.superName)
+                .add(String.join(",", c.interfaces))
+                .add(c.access & Opcodes.ACC_INTERFACE)
+        );
+
+        hierarchyKey = key.build();
+    }
+
+    /**
+     * @return the bytes of the class file; must not be modified
+     */
+    public byte[] encode(ClassNode class_) {
+        Encoded encoded = byNode.get(class_);
+
+        if (encoded != null && encoded.hierarchyKey.equals(hierarchyKey))
+            return encoded.bytes;
+
+        Content content = new Content(hierarchyKey, withoutFrames(class_));
+        byte[] bytes;
+
+        synchronized (byContent) {
+            bytes = byContent.get(content);
+        }
+
+        if (bytes == null) {
+            ClassWriter writer = new ProgramClassWriter();
+            ClassEdit.accept(class_, writer);
+            bytes = writer.toByteArray();
+
+            synchronized (byContent) {
+                byContent.put(content, bytes);
+            }
+        }
+
+        byNode.put(class_, new Encoded(hierarchyKey, bytes));
+        return bytes;
+    }
+
+    // much cheaper than encoding, as nothing is computed
+    private static byte[] withoutFrames(ClassNode class_) {
+        ClassWriter writer = new ClassWriter(0);
+
+        ClassEdit.accept(class_, new ClassVisitor(Opcodes.ASM9, writer) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+                    }
+
+                    @Override
+                    public void visitMaxs(int maxStack, int maxLocals) {
+                        super.visitMaxs(0, 0);
+                    }
+                };
+            }
+        });
+
+        return writer.toByteArray();
+    }
+
+    private class ProgramClassWriter extends ClassWriter {
+        public ProgramClassWriter() {
+            super(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+        }
+
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            if (!classesByName.containsKey(type1) && !classesByName.containsKey(type2))
+                return super.getCommonSuperClass(type1, type2);
+
+            if (type1.equals(type2))
+                return type1;
+
+            // the verifier treats interfaces like Object
+            if (isInterface(type1) || isInterface(type2))
+                return "java/lang/Object";
+
+            List<String> superclasses1 = superclasses(type1);
+            Set<String> superclasses2 = new HashSet<>(superclasses(type2));
+
+            return superclasses1.stream()
+                    .filter(superclasses2::contains)
+                    .findFirst()
+                    .orElse("java/lang/Object");
+        }
+
+        private boolean isInterface(String type) {
+            ClassNode class_ = classesByName.get(type);
+
+            if (class_ != null)
+                return (class_.access & Opcodes.ACC_INTERFACE) != 0;
+
+            Class<?> libraryClass = loadLibraryClass(type);
+            return libraryClass != null && libraryClass.isInterface();
+        }
+
+        // the type and its superclasses, in order; incomplete if a superclass can not be found
+        private List<String> superclasses(String type) {
+            List<String> result = new ArrayList<>();
+
+            while (type != null && !result.contains(type)) {
+                result.add(type);
+                ClassNode class_ = classesByName.get(type);
+
+                if (class_ != null) {
+                    type = class_.superName;
+                    continue;
+                }
+
+                Class<?> libraryClass = loadLibraryClass(type);
+
+                if (libraryClass == null)
+                    break;
+
+                for (Class<?> c = libraryClass.getSuperclass(); c != null; c = c.getSuperclass())
+                    result.add(Type.getInternalName(c));
+
+                break;
+            }
+
+            return result;
+        }
+
+        private Class<?> loadLibraryClass(String type) {
+            try {
+                return Class.forName(type.replace('/', '.'), false, getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package urbachyannick.approxflow.codetransformation;
+
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * The classes of a program, indexed for looking up classes, methods and subclasses by name instead of searching all
+ * classes for each call instruction. The index is built on the first lookup, so it is cheap to create a hierarchy for
+ * a transformation that never looks anything up. Classes must not be added, removed or renamed while the hierarchy is
+ * in use, and methods should only be added through {@link #addMethod}.
+ */
+public class ClassHierarchy {
+    private final List<ClassNode> classes;
+    private volatile Index index;
+
+    private static class Index {
+        public final Map<String, ClassNode> classesByName = new HashMap<>();
+        public final Map<String, MethodNode> methodsById = new HashMap<>();
+        public final Map<String, List<ClassNode>> subclassesByName = new HashMap<>();
+    }
+
+    public ClassHierarchy(List<ClassNode> classes) {
+        this.classes = classes;
+    }
+
+    public ClassHierarchy(Stream<ClassNode> classes) {
+        this(classes.collect(Collectors.toList()));
+    }
+
+    public List<ClassNode> getClasses() {
+        return classes;
+    }
+
+    private Index getIndex() {
+        Index result = index;
+
+        if (result != null)
+            return result;
+
+        synchronized (this) {
+            if (index != null)
+                return index;
+
+            result = new Index();
+
+            for (ClassNode class_ : classes) {
+                result.classesByName.putIfAbsent(class_.name, class_);
+
+                for (MethodNode method : class_.methods)
+                    result.methodsById.putIfAbsent(methodId(class_.name, method.name, method.desc), method);
+            }
+
+            // in the order of the classes, so virtual calls are resolved to the same candidates in the same order
+            for (ClassNode class_ : classes) {
+                if (class_.superName != null)
+                    result.subclassesByName.computeIfAbsent(class_.superName, n -> new ArrayList<>()).add(class_);
+            }
+
+            index = result;
+            return result;
+        }
+    }
+
+    private static String methodId(String owner, String name, String desc) {
+        return owner + "." + name + desc;
+    }
+
+    public Optional<ClassNode> findClass(String name) {
+        return Optional.ofNullable(getIndex().classesByName.get(name));
+    }
+
+    /**
+     * @return the method declared in the owner class itself (not inherited)
+     */
+    public Optional<MethodNode> findMethod(String owner, String name, String desc) {
+        return Optional.ofNullable(getIndex().methodsById.get(methodId(owner, name, desc)));
+    }
+
+    /**
+     * Adds a method to a class of the hierarchy, so it can be looked up.
+     */
+    public void addMethod(ClassNode owner, MethodNode method) {
+        Index index = getIndex();
+
+        synchronized (this) {
+            owner.methods.add(method);
+            index.methodsById.putIfAbsent(methodId(owner.name, method.name, method.desc), method);
+        }
+    }
+
+    public List<ClassNode> getSubclasses(ClassNode class_) {
+        return getIndex().subclassesByName.getOrDefault(class_.name, Collections.emptyList());
+    }
+
+    /**
+     * @return the class and all classes derived from it, each after the classes derived from it
+     */
+    public Stream<ClassNode> findDerived(ClassNode ancestor) {
+        Stream.Builder<ClassNode> derived = Stream.builder();
+        addDerived(ancestor, derived);
+        return derived.build();
+    }
+
+    private void addDerived(ClassNode ancestor, Stream.Builder<ClassNode> derived) {
+        for (ClassNode subclass : getSubclasses(ancestor))
+            addDerived(subclass, derived);
+
+        derived.accept(ancestor);
+    }
+}
@@ -19,18 +19,21 @@ public class CountMaxIOInstances implements Transformation {
     }
 
     private ClassNode applyToClass(ClassNode sourceClass, InsnList mainMethodInstructions) {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-        sourceClass.accept(targetClass);
-        targetClass.methods.forEach(m -> applyToMethod(targetClass, m, mainMethodInstructions));
-        return targetClass;
+        ClassEdit class_ = new ClassEdit(sourceClass);
+
+        for (MethodNode method : sourceClass.methods) {
+            if (
+                    anyHasAnnotation(method.visibleParameterAnnotations, "Lurbachyannick/approxflow/PublicOutput;") ||
+                    hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PublicInput;")
+            ) {
+                applyToMethod(sourceClass, class_.editMethod(method), mainMethodInstructions);
+            }
+        }
+
+        return class_.get();
     }
 
     private void applyToMethod(ClassNode owner, MethodNode method, InsnList mainMethodInstructions) {
-        if (
-                !anyHasAnnotation(method.visibleParameterAnnotations, "Lurbachyannick/approxflow/PublicOutput;") &&
-                !hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PublicInput;")
-        ) return;
-
         int callCount = 0;
 
         for (AbstractInsnNode i = mainMethodInstructions.getFirst(); i != null; i = i.getNext()) {
@@ -3,54 +3,108 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.tree.ClassNode;
 import urbachyannick.approxflow.IOCallbacks;
 
+import javax.tools.JavaCompiler;
 import java.io.IOException;
+import java.net.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.stream.*;
 
+/**
+ * Compiles Java sources with the Eclipse compiler (ecj) in util. The compiler is loaded into this process through its
+ * javax.tools interface; if that fails (e.g. because the JVM is too old for this version of ecj), it is run as a
+ * separate process.
+ */
 public class EclipseJavaCompiler implements Compiler {
+    private InProcessCompiler inProcessCompiler;
+    private boolean inProcessUnavailable;
 
     @Override
     public Stream<ClassNode> compile(Path classpath, IOCallbacks ioCallbacks) throws CompilationError {
         Path compilerPath = ioCallbacks.findInProgramDirectory(Paths.get("util", "ecj-4.18.jar"));
         Path resPath = ioCallbacks.findInProgramDirectory(Paths.get("res"));
-        List<String> command = new ArrayList<>();
 
-        Path targetDir = null;
-        try {
-            targetDir = ioCallbacks.createTemporaryDirectory("ecj-output");
-        } catch (IOException e) {
-            throw new CompilationError("Failed to create output directory", e);
-        }
+        List<Path> sourceFiles;
 
         try {
-            command.add("java");
-            command.add("-jar");
-            command.add(compilerPath.toString());
-            command.add("-1.8");
-            command.add("-classpath");
-            command.add(resPath.resolve("jbmc-core-models.jar").toString() + ":" + resPath.toString());
-            command.add("-g");
-            command.add("-parameters");
-            command.add("-d");
-            command.add(targetDir.toString());
-
-            List<Path> sourceFiles = Files
+            sourceFiles = Files
                     .walk(classpath)
                     .filter(p -> p.toString().endsWith(".java"))
                     .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new CompilationError("Failed to list source files", e);
+        }
+
+        if (sourceFiles.size() == 0)
+            return Stream.empty();
+
+        List<String> options = new ArrayList<>();
+        options.add("-1.8");
+        options.add("-classpath");
+        options.add(resPath.resolve("jbmc-core-models.jar").toString() + ":" + resPath.toString());
+        options.add("-g");
+        options.add("-parameters");
+
+        Optional<InProcessCompiler> compiler = getInProcessCompiler(compilerPath);
+
+        if (compiler.isPresent()) {
+            try {
+                return compiler.get().compile(options, sourceFiles, ioCallbacks.createTemporaryFile("ecj-log.txt"));
+            } catch (IOException e) {
+                throw new CompilationError("Failed to create log file", e);
+            }
+        }
+
+        return compileInSeparateProcess(compilerPath, options, sourceFiles, ioCallbacks);
+    }
 
-            if (sourceFiles.size() == 0)
-                return Stream.empty();
+    private synchronized Optional<InProcessCompiler> getInProcessCompiler(Path compilerPath) {
+        if (inProcessCompiler == null && !inProcessUnavailable) {
+            inProcessCompiler = loadCompiler(compilerPath).map(c -> new InProcessCompiler("ecj", c)).orElse(null);
+            inProcessUnavailable = inProcessCompiler == null;
+        }
 
-            sourceFiles.stream()
-                    .map(Path::toString)
-                    .forEach(command::add);
+        return Optional.ofNullable(inProcessCompiler);
+    }
 
+    // the jar registers ecj as a javax.tools.JavaCompiler service; the JDK's javac may be found as well, so it is
+    // picked by its class name
+    private static Optional<JavaCompiler> loadCompiler(Path compilerPath) {
+        try {
+            ClassLoader loader = new URLClassLoader(new URL[] { compilerPath.toUri().toURL() }, ClassLoader.getSystemClassLoader().getParent());
+
+            for (JavaCompiler compiler : ServiceLoader.load(JavaCompiler.class, loader)) {
+                if (compiler.getClass().getName().startsWith("org.eclipse.jdt."))
+                    return Optional.of(compiler);
+            }
+        } catch (MalformedURLException | ServiceConfigurationError | LinkageError e) {
+            System.err.println("Warning: can not load ecj into this process, running it separately: " + e);
+        }
+
+        return Optional.empty();
+    }
+
+    private static Stream<ClassNode> compileInSeparateProcess(Path compilerPath, List<String> options, List<Path> sourceFiles, IOCallbacks ioCallbacks) throws CompilationError {
+        List<String> command = new ArrayList<>();
+
+        Path targetDir = null;
+        try {
+            targetDir = ioCallbacks.createTemporaryDirectory("ecj-output");
         } catch (IOException e) {
-            throw new CompilationError("Failed to list source files", e);
+            throw new CompilationError("Failed to create output directory", e);
         }
 
+        command.add("java");
+        command.add("-jar");
+        command.add(compilerPath.toString());
+        command.addAll(options);
+        command.add("-d");
+        command.add(targetDir.toString());
+
+        sourceFiles.stream()
+                .map(Path::toString)
+                .forEach(command::add);
+
         try {
             ProcessBuilder.Redirect out = ProcessBuilder.Redirect.to(ioCallbacks.createTemporaryFile("ecj-log.txt").toFile());
 
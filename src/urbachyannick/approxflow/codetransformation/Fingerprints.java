@@ -0,0 +1,247 @@
+package urbachyannick.approxflow.codetransformation;
+
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.*;
+import urbachyannick.approxflow.cache.CacheKey;
+
+import java.util.*;
+import java.util.stream.*;
+
+import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
+
+/**
+ * Content fingerprints of classes and methods, for recognizing programs whose analysis would give the same result as
+ * an earlier one. Line numbers and local variable names are left out, so moving a method in the source file or
+ * renaming a local variable does not change its fingerprint.
+ */
+public class Fingerprints {
+
+    /**
+     * @return the fingerprint of everything about the class except its methods (i.e. its name, super types, fields
+     * and annotations)
+     */
+    public static String ofClassHeader(ClassNode class_) {
+        ClassWriter writer = new ClassWriter(0);
+
+        ClassEdit.accept(class_, new ClassVisitor(Opcodes.ASM9, writer) {
+            @Override
+            public void visitSource(String source, String debug) {
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return null;
+            }
+        });
+
+        return new CacheKey().add(writer.toByteArray()).build();
+    }
+
+    /**
+     * @return the fingerprint of the method, including its annotations, but without debug information
+     */
+    public static String ofMethod(MethodNode method) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Fingerprint", null, "java/lang/Object", null);
+
+        ClassEdit.accept(method, new ClassVisitor(Opcodes.ASM9, writer) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public void visitLineNumber(int line, Label start) {
+                    }
+
+                    @Override
+                    public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+                    }
+                };
+            }
+        });
+
+        writer.visitEnd();
+        return new CacheKey().add(writer.toByteArray()).build();
+    }
+
+    public static String methodId(ClassNode owner, MethodNode method) {
+        return owner.name + "." + method.name + method.desc;
+    }
+
+    /**
+     * Finds the methods that may be executed when running the main method, i.e. the main method, the static
+     * initializers and everything they call, transitively. Calls are resolved by name and descriptor in all classes,
+     * which over-approximates virtual calls (to overrides and interface implementations) and inherited methods.
+     * Methods that override methods of library classes (like toString or Runnable.run) are included as they may be
+     * called by the library. Methods with approxflow annotations are included too, as transformations and scanners
+     * look at them regardless of whether they are called.
+     *
+     * @return the ids (see {@link #methodId}) of the methods, sorted
+     */
+    public static SortedSet<String> reachableFromMain(List<ClassNode> classes) {
+        Map<String, List<String>> idsByNameAndDesc = new HashMap<>();
+        Map<String, MethodNode> methodsById = new HashMap<>();
+        Map<String, ClassNode> classesByName = new HashMap<>();
+        Map<String, Set<String>> libraryMethods = new HashMap<>();
+        Deque<String> pending = new ArrayDeque<>();
+
+        classes.forEach(c -> classesByName.put(c.name, c));
+
+        for (ClassNode class_ : classes) {
+            for (MethodNode method : class_.methods) {
+                String id = methodId(class_, method);
+                methodsById.put(id, method);
+                idsByNameAndDesc.computeIfAbsent(method.name + method.desc, k -> new ArrayList<>()).add(id);
+
+                if (
+                        isMainMethod(method) ||
+                        method.name.equals("<clinit>") ||
+                        hasApproxflowAnnotation(method) ||
+                        overridesLibraryMethod(class_, method, classesByName, libraryMethods)
+                ) {
+                    pending.add(id);
+                }
+            }
+        }
+
+        SortedSet<String> reachable = new TreeSet<>();
+
+        while (!pending.isEmpty()) {
+            String id = pending.remove();
+
+            if (!reachable.add(id))
+                continue;
+
+            for (AbstractInsnNode instruction : methodsById.get(id).instructions) {
+                callees(instruction).forEach(nameAndDesc ->
+                        pending.addAll(idsByNameAndDesc.getOrDefault(nameAndDesc, Collections.emptyList()))
+                );
+            }
+        }
+
+        return reachable;
+    }
+
+    // name and descriptor of the methods the instruction may call, including method handles (e.g. of lambdas)
+    private static Stream<String> callees(AbstractInsnNode instruction) {
+        if (instruction instanceof MethodInsnNode)
+            return Stream.of(((MethodInsnNode) instruction).name + ((MethodInsnNode) instruction).desc);
+
+        if (instruction instanceof InvokeDynamicInsnNode) {
+            InvokeDynamicInsnNode call = (InvokeDynamicInsnNode) instruction;
+
+            return Stream.concat(Stream.of(call.bsm), Arrays.stream(call.bsmArgs))
+                    .filter(a -> a instanceof Handle)
+                    .map(a -> ((Handle) a).getName() + ((Handle) a).getDesc());
+        }
+
+        if (instruction instanceof LdcInsnNode && ((LdcInsnNode) instruction).cst instanceof Handle) {
+            Handle handle = (Handle) ((LdcInsnNode) instruction).cst;
+            return Stream.of(handle.getName() + handle.getDesc());
+        }
+
+        return Stream.empty();
+    }
+
+    private static boolean overridesLibraryMethod(ClassNode class_, MethodNode method, Map<String, ClassNode> classesByName, Map<String, Set<String>> libraryMethods) {
+        if (hasFlag(method.access, Opcodes.ACC_STATIC) || hasFlag(method.access, Opcodes.ACC_PRIVATE) || method.name.startsWith("<"))
+            return false;
+
+        Deque<String> supertypes = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        addSupertypes(class_, supertypes);
+
+        while (!supertypes.isEmpty()) {
+            String name = supertypes.remove();
+
+            if (!visited.add(name))
+                continue;
+
+            ClassNode supertype = classesByName.get(name);
+
+            if (supertype != null)
+                addSupertypes(supertype, supertypes);
+            else if (overridesLibraryMethod(name, method, libraryMethods))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static boolean overridesLibraryMethod(String libraryClass, MethodNode method, Map<String, Set<String>> libraryMethods) {
+        if (!libraryMethods.containsKey(libraryClass))
+            libraryMethods.put(libraryClass, loadLibraryMethods(libraryClass));
+
+        Set<String> methods = libraryMethods.get(libraryClass);
+        return methods == null || methods.contains(method.name + method.desc);
+    }
+
+    private static void addSupertypes(ClassNode class_, Deque<String> supertypes) {
+        if (class_.superName != null)
+            supertypes.add(class_.superName);
+
+        supertypes.addAll(class_.interfaces);
+    }
+
+    // names and descriptors of the methods of a library class that a subclass can override, or null if the class can not
+    // be loaded (in which case any method might be an override)
+    private static Set<String> loadLibraryMethods(String className) {
+        Set<String> methods = new HashSet<>();
+
+        try {
+            Class<?> class_ = Class.forName(className.replace('/', '.'), false, Fingerprints.class.getClassLoader());
+
+            for (java.lang.reflect.Method method : class_.getMethods())
+                methods.add(method.getName() + Type.getMethodDescriptor(method));
+
+            for (Class<?> c = class_; c != null; c = c.getSuperclass()) {
+                for (java.lang.reflect.Method method : c.getDeclaredMethods())
+                    methods.add(method.getName() + Type.getMethodDescriptor(method));
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+
+        return methods;
+    }
+
+    private static boolean hasApproxflowAnnotation(MethodNode method) {
+        Stream<List<AnnotationNode>> annotations = Stream.of(method.visibleAnnotations);
+
+        if (method.visibleParameterAnnotations != null)
+            annotations = Stream.concat(annotations, Arrays.stream(method.visibleParameterAnnotations));
+
+        return annotations
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .anyMatch(a -> a.desc.startsWith("Lurbachyannick/approxflow/"));
+    }
+
+    /**
+     * @return the fingerprint of the parts of the program that can affect its analysis: the headers of all classes and
+     * the methods reachable from the main method
+     */
+    public static String ofProgram(List<ClassNode> classes) {
+        List<ClassNode> sortedClasses = classes.stream()
+                .sorted(Comparator.comparing(c -> c.name))
+                .collect(Collectors.toList());
+
+        CacheKey key = new CacheKey();
+
+        for (ClassNode class_ : sortedClasses) {
+            key.add(class_.name);
+            key.add(ofClassHeader(class_));
+        }
+
+        Map<String, MethodNode> methodsById = new HashMap<>();
+
+        for (ClassNode class_ : classes)
+            class_.methods.forEach(m -> methodsById.put(methodId(class_, m), m));
+
+        for (String id : reachableFromMain(classes)) {
+            key.add(id);
+            key.add(ofMethod(methodsById.get(id)));
+        }
+
+        return key.build();
+    }
+}
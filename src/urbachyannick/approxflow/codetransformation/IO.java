@@ -6,34 +6,44 @@ import urbachyannick.approxflow.javasignatures.*;
 
 import java.io.*;
 import java.nio.file.*;
-import java.util.Iterator;
-import java.util.stream.Stream;
+import java.util.*;
+import java.util.stream.*;
 
 public class IO {
     public static void write(ClassNode class_, Path path) throws IOException {
+        Files.write(path, toBytes(class_));
+    }
+
+    public static byte[] toBytes(ClassNode class_) {
         ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
-        class_.accept(writer);
-        Files.write(path, writer.toByteArray());
+        ClassEdit.accept(class_, writer);
+        return writer.toByteArray();
     }
 
     public static ClassNode read(Path path) throws IOException {
-        try(InputStream inputStream = Files.newInputStream(path)) {
-            ClassReader reader = new ClassReader(inputStream);
-            ClassNode class_ = new ClassNode(Opcodes.ASM5);
-            reader.accept(class_, ClassReader.EXPAND_FRAMES);
-            return class_;
-        }
+        return read(Files.readAllBytes(path));
+    }
+
+    public static ClassNode read(byte[] bytes) {
+        ClassReader reader = new ClassReader(bytes);
+        ClassNode class_ = new ClassNode(Opcodes.ASM5);
+        reader.accept(class_, ClassReader.EXPAND_FRAMES);
+        return class_;
     }
 
+    /**
+     * Writes the classes of a program, encoded by a {@link ClassEncoder}, so classes that were already written
+     * unchanged (e.g. for another stage) are not encoded again.
+     */
     public static void writeAll(Stream<ClassNode> classes, Path path) throws IOException {
-        Iterator<ClassNode> i = classes.iterator();
+        List<ClassNode> classesList = classes.collect(Collectors.toList());
+        ClassEncoder encoder = new ClassEncoder(classesList);
 
-        while(i.hasNext()) {
-            ClassNode class_ = i.next();
+        for (ClassNode class_ : classesList) {
             ClassName name = ClassName.tryParseFromTypeSpecifier("L" + class_.name + ";", new MutableInteger(0));
             Path targetPath = path.resolve(name.asPath(".class"));
             Files.createDirectories(targetPath.getParent());
-            write(class_, targetPath);
+            Files.write(targetPath, encoder.encode(class_));
         }
     }
 
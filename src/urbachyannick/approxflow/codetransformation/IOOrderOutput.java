@@ -8,26 +8,25 @@ import java.util.stream.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class IOOrderOutput implements Transformation {
+public class IOOrderOutput extends Transformation.WithHierarchy {
     private static final String outputMethodName = "$$ioOrder";
     private static final String outputMethodDesc = "(I)V";
 
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> classes) throws InvalidTransformationException {
-        List<ClassNode> classesList = classes.collect(Collectors.toList());
-        return classesList.stream().map(c -> findMainMethod(c).map(m -> applyToMainClass(c, classesList)).orElse(c));
+    public Stream<ClassNode> apply(ClassHierarchy classes) throws InvalidTransformationException {
+        return classes.getClasses().stream().map(c -> findMainMethod(c).map(m -> applyToMainClass(c, classes)).orElse(c));
     }
 
-    private ClassNode applyToMainClass(ClassNode sourceClass, List<ClassNode> classes) {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-        sourceClass.accept(targetClass);
+    private ClassNode applyToMainClass(ClassNode sourceClass, ClassHierarchy classes) {
+        ClassEdit targetClass = new ClassEdit(sourceClass);
 
-        MethodNode mainMethod = findMainMethod(targetClass).get();
+        MethodNode mainMethod = targetClass.editMethod(findMainMethod(sourceClass).get());
         applyToMainMethod(targetClass, mainMethod, classes);
-        return targetClass;
+        return targetClass.get();
     }
 
-    private void applyToMainMethod(ClassNode mainClass, MethodNode mainMethod, List<ClassNode> classes) {
+    private void applyToMainMethod(ClassEdit mainClassEdit, MethodNode mainMethod, ClassHierarchy classes) {
+        ClassNode mainClass = mainClassEdit.get();
         Map<MethodNode, Integer> ids = new HashMap<>();
         int callCount = 0;
 
@@ -40,12 +39,7 @@ public class IOOrderOutput implements Transformation {
             if (mainClass.name.equals(mi.owner) && outputMethodName.equals(mi.name) && outputMethodDesc.equals(mi.desc))
                 continue;
 
-            Optional<ClassNode> owner = findClass(classes.stream(), mi.owner);
-
-            if (!owner.isPresent())
-                continue;
-
-            Optional<MethodNode> method = findMethod(owner.get(), mi.owner, mi.name, mi.desc);
+            Optional<MethodNode> method = classes.findMethod(mi.owner, mi.name, mi.desc);
 
             if (!method.isPresent())
                 continue;
@@ -70,10 +64,10 @@ public class IOOrderOutput implements Transformation {
             callCount++;
         }
 
-        addIOOrderOutputMethod(mainClass, callCount);
+        addIOOrderOutputMethod(mainClassEdit, callCount);
     }
 
-    private void addIOOrderOutputMethod(ClassNode mainClass, int callCount) {
+    private void addIOOrderOutputMethod(ClassEdit mainClass, int callCount) {
         MethodNode outputMethod = new MethodNode(
                 Opcodes.ASM5,
                 Opcodes.ACC_STATIC | Opcodes.ACC_PUBLIC,
@@ -100,6 +94,6 @@ public class IOOrderOutput implements Transformation {
             maxLocals = 1;
         }};
 
-        mainClass.methods.add(outputMethod);
+        mainClass.addMethod(outputMethod);
     }
 }
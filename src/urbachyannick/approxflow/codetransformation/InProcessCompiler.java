@@ -0,0 +1,93 @@
+package urbachyannick.approxflow.codetransformation;
+
+import org.objectweb.asm.tree.ClassNode;
+
+import javax.tools.*;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Runs a javax.tools compiler (javac or ecj) in this process. Class files are kept in memory and read directly into
+ * ClassNodes instead of being written to an output directory. The compiler and its file manager (which caches the
+ * contents of the jars on the classpath) are reused for all compilations, e.g. of all tests in test mode.
+ */
+class InProcessCompiler {
+    private final String name;
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager fileManager;
+
+    /**
+     * @param name the name of the compiler, for messages
+     * @param compiler the compiler
+     */
+    public InProcessCompiler(String name, JavaCompiler compiler) {
+        this.name = name;
+        this.compiler = compiler;
+        fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    }
+
+    public boolean isSupportedOption(String option) {
+        return compiler.isSupportedOption(option) >= 0;
+    }
+
+    /**
+     * @param options the command line options, except for the output directory and source files
+     * @param sourceFiles the source files
+     * @param logFile the file to write the messages of the compiler to
+     * @return the compiled classes, ordered by name
+     * @throws CompilationError if the compiler reports errors
+     */
+    public synchronized Stream<ClassNode> compile(List<String> options, List<Path> sourceFiles, Path logFile) throws CompilationError {
+        Map<String, ByteArrayOutputStream> classFiles = new TreeMap<>();
+
+        JavaFileManager memoryFileManager = new ForwardingJavaFileManager<JavaFileManager>(fileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+                if (kind != JavaFileObject.Kind.CLASS)
+                    return super.getJavaFileForOutput(location, className, kind, sibling);
+
+                return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream output = new ByteArrayOutputStream();
+                        classFiles.put(className, output);
+                        return output;
+                    }
+                };
+            }
+        };
+
+        StringWriter log = new StringWriter();
+        boolean success;
+
+        try {
+            Iterable<? extends JavaFileObject> sources = fileManager.getJavaFileObjectsFromFiles(
+                    sourceFiles.stream().map(Path::toFile).collect(Collectors.toList())
+            );
+
+            success = compiler.getTask(log, memoryFileManager, null, options, null, sources).call();
+        } catch (RuntimeException e) {
+            throw new CompilationError("Failed to run " + name, e);
+        } finally {
+            try {
+                Files.write(logFile, log.toString().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                System.err.println("Warning: could not write " + name + " log: " + e.getMessage());
+            }
+        }
+
+        if (!success)
+            throw new CompilationError(name + " reported errors, see " + logFile);
+
+        List<ClassNode> classes = new ArrayList<>();
+
+        for (ByteArrayOutputStream classFile : classFiles.values())
+            classes.add(IO.read(classFile.toByteArray()));
+
+        return classes.stream();
+    }
+}
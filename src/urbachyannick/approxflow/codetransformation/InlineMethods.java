@@ -6,11 +6,15 @@ import org.objectweb.asm.tree.*;
 import urbachyannick.approxflow.javasignatures.*;
 
 import java.util.*;
+import java.util.function.*;
 import java.util.stream.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class InlineMethods implements Transformation {
+public class InlineMethods extends Transformation.WithHierarchy {
+    // the instructions of the inlined methods are visited while visiting the method they are inlined into, which locks
+    // both (see ClassEdit), so inlining is never done concurrently to rule out deadlocks
+    private static final Object inlineLock = new Object();
 
     private final InlinePreferences prefs;
 
@@ -23,22 +27,98 @@ public class InlineMethods implements Transformation {
     }
 
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> sourceClasses) throws InvalidTransformationException {
-        List<ClassNode> classList = sourceClasses.collect(Collectors.toList());
-
+    public Stream<ClassNode> apply(ClassHierarchy sourceClasses) throws InvalidTransformationException {
         try {
-            return classList.stream().map(sourceClass -> {
+            return sourceClasses.getClasses().stream().map(sourceClass -> {
+                // classes without inlinable calls are shared with the source (see ClassEdit) without copying them
+                if (!hasInlinableCalls(sourceClasses, sourceClass))
+                    return sourceClass;
+
                 ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-                CV visitor = new CV(sourceClass, classList, Opcodes.ASM5, targetClass);
-                sourceClass.accept(visitor);
+                CV visitor = new CV(sourceClass, sourceClasses, Opcodes.ASM5, targetClass);
+
+                synchronized (inlineLock) {
+                    ClassEdit.accept(sourceClass, visitor);
+                }
 
-                return targetClass;
+                return visitor.inlinedAny() ? targetClass : sourceClass;
             });
         } catch (RuntimeInvalidTransformationException e) {
             throw new InvalidTransformationException(e);
         }
     }
 
+    private boolean hasInlinableCalls(ClassHierarchy classes, ClassNode class_) {
+        for (MethodNode method : class_.methods) {
+            for (AbstractInsnNode instruction : method.instructions) {
+                if (instruction.getType() != AbstractInsnNode.METHOD_INSN)
+                    continue;
+
+                MethodInsnNode call = (MethodInsnNode) instruction;
+
+                if (shouldInline(classes, class_, method, call.getOpcode(), call.owner, call.name, call.desc, m -> 0))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean shouldInline(
+            ClassHierarchy classes,
+            ClassNode class_,
+            MethodNode method,
+            int opcode,
+            String owner,
+            String name,
+            String descriptor,
+            ToIntFunction<MethodNode> recursionDepth
+    ) {
+        if (opcode == Opcodes.INVOKEDYNAMIC)
+            return false; // not supported for now
+
+        Optional<ClassNode> ownerClassOptional = classes.findClass(owner);
+        Optional<MethodNode> calledMethodOptional = ownerClassOptional.flatMap(c -> classes.findMethod(owner, name, descriptor));
+
+        if (!calledMethodOptional.isPresent() || methodBlacklisted(calledMethodOptional.get()))
+            return false;
+
+        InlinePreferences preferences = InlinePreferences.get(
+                prefs,
+                ownerClassOptional.get(),
+                calledMethodOptional.get(),
+                class_,
+                method
+        );
+
+        if (!preferences.shouldInline() || recursionDepth.applyAsInt(calledMethodOptional.get()) >= preferences.getRecursions())
+            return false;
+
+        // virtual calls without candidates are left as they are
+        return
+                opcode == Opcodes.INVOKESTATIC ||
+                opcode == Opcodes.INVOKESPECIAL ||
+                !Candidate.getCandidates(classes, ownerClassOptional.get(), calledMethodOptional.get()).isEmpty();
+    }
+
+    private static boolean methodBlacklisted(MethodNode method) {
+        if (hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PrivateInput;"))
+            return true;
+
+        if (hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PublicInput;"))
+            return true;
+
+        if (
+                method.visibleParameterAnnotations != null &&
+                Arrays.stream(method.visibleParameterAnnotations)
+                        .anyMatch(a -> hasAnnotation(a, "Lurbachyannick/approxflow/PublicOutput;"))
+        ) {
+            return true;
+        }
+
+        return false;
+    }
+
     private static class RecursionDepthManager {
         private final Map<MethodNode, Integer> recursionDepths;
 
@@ -52,10 +132,11 @@ public class InlineMethods implements Transformation {
     }
 
     private class CV extends ClassVisitor {
-        private final List<ClassNode> classes;
+        private final ClassHierarchy classes;
         private final ClassNode class_;
+        private final List<MV> methodVisitors = new ArrayList<>();
 
-        public CV(ClassNode class_, List<ClassNode> classes, int api, ClassVisitor classVisitor) {
+        public CV(ClassNode class_, ClassHierarchy classes, int api, ClassVisitor classVisitor) {
             super(api, classVisitor);
             this.classes = classes;
             this.class_ = class_;
@@ -63,14 +144,19 @@ public class InlineMethods implements Transformation {
 
         @Override
         public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-            MethodNode method = findMethod(class_, class_.name, name, descriptor)
+            MethodNode method = classes.findMethod(class_.name, name, descriptor)
                     .orElseThrow(() -> new RuntimeInvalidTransformationException("Can not find visited method"));
 
             MV visitor = new MV(class_, method, classes, api, super.visitMethod(access, name, descriptor, signature, exceptions));
             LocalVariablesSorter sorter = new LocalVariablesSorter(access, descriptor, visitor);
             visitor.sorter = sorter;
+            methodVisitors.add(visitor);
             return sorter;
         }
+
+        public boolean inlinedAny() {
+            return methodVisitors.stream().anyMatch(v -> v.inlined);
+        }
     }
 
     private static class Candidate {
@@ -82,13 +168,13 @@ public class InlineMethods implements Transformation {
             this.method = method;
         }
 
-        public static List<Candidate> getCandidates(List<ClassNode> classes, ClassNode containingClass, MethodNode method) {
+        public static List<Candidate> getCandidates(ClassHierarchy classes, ClassNode containingClass, MethodNode method) {
             List<Candidate> candidates = new ArrayList<>();
-            Iterator<ClassNode> i = findDerived(containingClass, classes).iterator();
+            Iterator<ClassNode> i = classes.findDerived(containingClass).iterator();
 
             while (i.hasNext()) {
                 ClassNode derived = i.next();
-                Optional<MethodNode> override = findMethod(derived, derived.name, method.name, method.desc);
+                Optional<MethodNode> override = classes.findMethod(derived.name, method.name, method.desc);
 
                 if (override.isPresent() && hasBody(override.get()))
                     candidates.add(new Candidate(derived, override.get()));
@@ -100,12 +186,13 @@ public class InlineMethods implements Transformation {
 
     private class MV extends MethodVisitor {
         public LocalVariablesSorter sorter;
+        public boolean inlined;
         private final RecursionDepthManager recursionDepths;
-        private final List<ClassNode> classes;
+        private final ClassHierarchy classes;
         private final ClassNode class_;
         private final MethodNode method;
 
-        public MV(ClassNode class_, MethodNode method, List<ClassNode> classes, int api, MethodVisitor methodVisitor) {
+        public MV(ClassNode class_, MethodNode method, ClassHierarchy classes, int api, MethodVisitor methodVisitor) {
             super(api, methodVisitor);
             this.classes = classes;
             recursionDepths = new RecursionDepthManager();
@@ -161,71 +248,26 @@ public class InlineMethods implements Transformation {
                     .collect(Collectors.toList());
         }
 
-        private boolean methodBlacklisted(MethodNode method) {
-            if (hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PrivateInput;"))
-                return true;
-
-            if (hasAnnotation(method.visibleAnnotations, "Lurbachyannick/approxflow/PublicInput;"))
-                return true;
-
-            if (
-                    method.visibleParameterAnnotations != null &&
-                    Arrays.stream(method.visibleParameterAnnotations)
-                            .anyMatch(a -> hasAnnotation(a, "Lurbachyannick/approxflow/PublicOutput;"))
-            ) {
-                return true;
-            }
-
-            return false;
-        }
-
         @Override
         public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
 
-            if (opcode == Opcodes.INVOKEDYNAMIC) {
-                // not supported for now
+            if (!shouldInline(classes, class_, method, opcode, owner, name, descriptor, recursionDepths::get)) {
                 super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
                 return;
             }
 
-            Optional<ClassNode> ownerClassOptional = findClass(classes.stream(), owner);
-            Optional<MethodNode> calledMethodOptional = ownerClassOptional.flatMap(c -> findMethod(c, owner, name, descriptor));
-
-            if (!calledMethodOptional.isPresent() || methodBlacklisted(calledMethodOptional.get())) {
-                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
-                return;
-            }
-
-            InlinePreferences preferences = InlinePreferences.get(
-                    prefs,
-                    ownerClassOptional.get(),
-                    calledMethodOptional.get(),
-                    class_,
-                    method
-            );
-
-            if (!preferences.shouldInline() || recursionDepths.get(calledMethodOptional.get()) >= preferences.getRecursions()) {
-                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
-                return;
-            }
-
-            ClassNode ownerClass = ownerClassOptional.get();
-            MethodNode calledMethod = calledMethodOptional.get();
+            ClassNode ownerClass = classes.findClass(owner).get();
+            MethodNode calledMethod = classes.findMethod(owner, name, descriptor).get();
 
             List<Candidate> candidates = null;
 
             if (!(opcode == Opcodes.INVOKESTATIC || opcode == Opcodes.INVOKESPECIAL)) {
                 // need virtual call resolution
-                // find candidates ahead of time to be able to abort in time if there is none
-                candidates = Candidate.getCandidates(classes, ownerClassOptional.get(), calledMethodOptional.get());
-
-                if (candidates.size() == 0) {
-                    // leave call as it is
-                    super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
-                    return;
-                }
+                candidates = Candidate.getCandidates(classes, ownerClass, calledMethod);
             }
 
+            inlined = true;
+
             Label returnLabel = new Label(); // label at the end of the inlined code to return to
             Map<Integer, Integer> varMap = new HashMap<>();
             remapAndWriteArguments(opcode != Opcodes.INVOKESTATIC, ownerClass, calledMethod, varMap);
@@ -277,7 +319,11 @@ public class InlineMethods implements Transformation {
 
             TypeSpecifier returnType = getReturnType(method);
             remapLocalVariables(method, varMap);
-            copyOver(method.instructions, varMap, returnLabel, returnType.asPrimitive());
+
+            // visiting the instructions writes to the labels of the inlined method (see ClassEdit)
+            synchronized (method) {
+                copyOver(method.instructions, varMap, returnLabel, returnType.asPrimitive());
+            }
 
             recursionDepths.ascend(method);
         }
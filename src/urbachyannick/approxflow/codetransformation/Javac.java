@@ -3,51 +3,95 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.tree.ClassNode;
 import urbachyannick.approxflow.IOCallbacks;
 
+import javax.tools.*;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
 import java.util.stream.*;
 
+/**
+ * Compiles Java sources with javac. Runs the compiler of the JDK in this process, or javac as a separate process if
+ * this runs on a JRE.
+ */
 public class Javac implements Compiler {
+    private InProcessCompiler inProcessCompiler;
+    private boolean inProcessUnavailable;
 
     @Override
     public Stream<ClassNode> compile(Path classpath, IOCallbacks ioCallbacks) throws CompilationError {
         Path coreModelsPath = ioCallbacks.findInProgramDirectory(Paths.get("res/jbmc-core-models.jar"));
         Path jarPath = ioCallbacks.getJarPath();
 
-        List<String> command = new ArrayList<>();
-
-        Path targetDir = null;
-        try {
-            targetDir = ioCallbacks.createTemporaryDirectory("javac-output");
-        } catch (IOException e) {
-            throw new CompilationError("Failed create output directory", e);
-        }
+        List<Path> sourceFiles;
 
         try {
-            command.add("javac");
-            command.add("-classpath");
-            command.add(coreModelsPath.toString() + ":" + jarPath.toString());
-            command.add("-g");
-            command.add("-d");
-            command.add(targetDir.toString());
-
-            List<Path> sourceFiles = Files
+            sourceFiles = Files
                     .walk(classpath)
                     .filter(p -> p.toString().endsWith(".java"))
                     .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new CompilationError("Failed to list source files", e);
+        }
+
+        if (sourceFiles.size() == 0)
+            return Stream.empty();
 
-            if (sourceFiles.size() == 0)
-                return Stream.empty();
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(coreModelsPath.toString() + ":" + jarPath.toString());
+        options.add("-g");
 
-            sourceFiles.stream()
-                    .map(Path::toString)
-                    .forEach(command::add);
+        Optional<InProcessCompiler> compiler = getInProcessCompiler();
 
+        if (compiler.isPresent()) {
+            // this may run on a newer JDK than the javac 8 expected on the path, whose class files JBMC can not read
+            if (compiler.get().isSupportedOption("--release")) {
+                options.add("--release");
+                options.add("8");
+            }
+
+            try {
+                return compiler.get().compile(options, sourceFiles, ioCallbacks.createTemporaryFile("javac-log.txt"));
+            } catch (IOException e) {
+                throw new CompilationError("Failed to create log file", e);
+            }
+        }
+
+        return compileInSeparateProcess(options, sourceFiles, ioCallbacks);
+    }
+
+    private synchronized Optional<InProcessCompiler> getInProcessCompiler() {
+        if (inProcessCompiler == null && !inProcessUnavailable) {
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler(); // null on a JRE
+
+            if (compiler != null)
+                inProcessCompiler = new InProcessCompiler("javac", compiler);
+            else
+                inProcessUnavailable = true;
+        }
+
+        return Optional.ofNullable(inProcessCompiler);
+    }
+
+    private static Stream<ClassNode> compileInSeparateProcess(List<String> options, List<Path> sourceFiles, IOCallbacks ioCallbacks) throws CompilationError {
+        List<String> command = new ArrayList<>();
+
+        Path targetDir = null;
+        try {
+            targetDir = ioCallbacks.createTemporaryDirectory("javac-output");
         } catch (IOException e) {
-            throw new CompilationError("Failed to list source files", e);
+            throw new CompilationError("Failed create output directory", e);
         }
 
+        command.add("javac");
+        command.addAll(options);
+        command.add("-d");
+        command.add(targetDir.toString());
+
+        sourceFiles.stream()
+                .map(Path::toString)
+                .forEach(command::add);
+
         try {
             ProcessBuilder.Redirect out = ProcessBuilder.Redirect.to(ioCallbacks.createTemporaryFile("javac-log.txt").toFile());
 
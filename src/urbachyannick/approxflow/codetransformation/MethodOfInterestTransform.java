@@ -9,31 +9,26 @@ import java.util.stream.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class MethodOfInterestTransform implements Transformation {
+public class MethodOfInterestTransform extends Transformation.WithHierarchy {
 
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> sourceClasses) throws InvalidTransformationException {
+    public Stream<ClassNode> apply(ClassHierarchy sourceClasses) throws InvalidTransformationException {
         Stream.Builder<ClassNode> streamBuilder = Stream.builder();
 
-        List<ClassNode> sourceClassList = sourceClasses.collect(Collectors.toList());
-
-        for (ClassNode sourceClass : sourceClassList)
-            streamBuilder.accept(applyToClass(sourceClass, sourceClassList));
+        for (ClassNode sourceClass : sourceClasses.getClasses())
+            streamBuilder.accept(applyToClass(sourceClass, sourceClasses));
 
         return streamBuilder.build();
     }
 
-    protected ClassNode applyToClass(ClassNode sourceClass, List<ClassNode> sourceClasses) throws InvalidTransformationException {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-        sourceClass.accept(targetClass); // copy over
-
+    protected ClassNode applyToClass(ClassNode sourceClass, ClassHierarchy sourceClasses) throws InvalidTransformationException {
         // find methods with annotation
-        List<MethodNode> methods = targetClass.methods.stream()
+        List<MethodNode> methods = sourceClass.methods.stream()
                 .filter(m -> hasAnnotation(m.visibleAnnotations, "Lurbachyannick/approxflow/MethodOfInterest;"))
                 .collect(Collectors.toList());
 
         if (methods.size() == 0)
-            return targetClass;
+            return sourceClass;
 
         if (methods.size() > 1)
             throw new InvalidTransformationException("Must have at most one method of interest");
@@ -41,10 +36,11 @@ public class MethodOfInterestTransform implements Transformation {
         if (methods.stream().anyMatch(m -> !hasFlag(m.access, Opcodes.ACC_STATIC)))
             throw new InvalidTransformationException("Method of interest must be static");
 
-        if (findMainMethod(targetClass).isPresent())
+        if (findMainMethod(sourceClass).isPresent())
             throw new InvalidTransformationException("Must not have a main method"); // because we'll generate one
 
         MethodNode method = methods.get(0);
+        ClassNode targetClass = new ClassEdit(sourceClass).edit();
 
         // create new main method
         MethodNode main = new MethodNode(Opcodes.ASM5, Opcodes.ACC_STATIC | Opcodes.ACC_PUBLIC, "main", "([Ljava/lang/String;)V", null, null);
@@ -53,7 +49,7 @@ public class MethodOfInterestTransform implements Transformation {
         // add nondet*() calls for parameters
         for (Type t : Type.getArgumentTypes(method.desc)) {
             TypeSpecifier s = TypeSpecifier.parse(t.getDescriptor(), new MutableInteger(0));
-            main.instructions.add(Nondet.generateNondetRecursive(s, sourceClasses.stream()));
+            main.instructions.add(Nondet.generateNondetRecursive(s, sourceClasses));
         }
 
         // add call to method of interest
@@ -10,13 +10,13 @@ import java.util.stream.*;
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
 public class Nondet {
-    public static InsnList generateNondetRecursive(TypeSpecifier type, Stream<ClassNode> classes) throws InvalidTransformationException {
+    public static InsnList generateNondetRecursive(TypeSpecifier type, ClassHierarchy classes) throws InvalidTransformationException {
         InsnList instructions = new InsnList();
-        generateNondetRecursive(type, classes.collect(Collectors.toList()), instructions);
+        generateNondetRecursive(type, classes, instructions);
         return instructions;
     }
 
-    private static void generateNondetRecursive(TypeSpecifier type, List<ClassNode> classes, InsnList instructions) throws InvalidTransformationException {
+    private static void generateNondetRecursive(TypeSpecifier type, ClassHierarchy classes, InsnList instructions) throws InvalidTransformationException {
         if (type.isPrimitive()) {
             instructions.add(
                     new MethodInsnNode(
@@ -33,7 +33,7 @@ public class Nondet {
         if (type instanceof ClassName) {
             ClassName className = ((ClassName) type);
 
-            ClassNode classNode = findClass(classes.stream(), className.asQualifiedName())
+            ClassNode classNode = classes.findClass(className.asQualifiedName())
                     .orElseThrow(() -> new InvalidTransformationException("Can not generate nondet for " + type.asTypeSpecifierString()));
 
             /*
@@ -51,7 +51,7 @@ public class Nondet {
                 instructions.add(new FieldInsnNode(Opcodes.PUTFIELD, classNode.name, field.name, field.desc));
             }
 
-            Optional<MethodNode> checkInvariant = findMethod(classNode, classNode.name, "$$checkInvariant", "()V");
+            Optional<MethodNode> checkInvariant = classes.findMethod(classNode.name, "$$checkInvariant", "()V");
             checkInvariant.ifPresent(m -> {
                 instructions.add(new InsnNode(Opcodes.DUP));
                 instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, classNode.name, m.name, "()V"));
@@ -8,34 +8,32 @@ import java.util.stream.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class ObjectInvariants extends Transformation.PerClass {
+public class ObjectInvariants extends Transformation.PerClassEdit {
 
     @Override
-    protected ClassNode applyToClass(ClassNode sourceClass) throws InvalidTransformationException {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-        sourceClass.accept(targetClass);
+    protected void applyToClass(ClassEdit class_) throws InvalidTransformationException {
+        ClassNode sourceClass = class_.get();
 
-        List<MethodNode> invariants = targetClass.methods.stream()
+        List<MethodNode> invariants = sourceClass.methods.stream()
                 .filter(m -> hasAnnotation(m.visibleAnnotations, "Lurbachyannick/approxflow/Invariant;"))
                 .collect(Collectors.toList());
 
         if (invariants.size() == 0)
-            return targetClass;
+            return;
 
         for(MethodNode method : invariants)
             checkSignature(method);
 
-        checkForPublicFields(targetClass);
+        checkForPublicFields(sourceClass);
 
-        MethodNode checkInvariant = generateCheckInvariant(targetClass, invariants.stream());
+        MethodNode checkInvariant = generateCheckInvariant(sourceClass, invariants.stream());
 
-        targetClass.methods.stream()
+        sourceClass.methods.stream()
                 .filter(m -> hasBody(m) && !hasFlag(m.access, Opcodes.ACC_STATIC) && !invariants.contains(m))
-                .forEach(m -> applyToMethod(targetClass, m, checkInvariant));
+                .collect(Collectors.toList())
+                .forEach(m -> applyToMethod(sourceClass, class_.editMethod(m), checkInvariant));
 
-        targetClass.methods.add(checkInvariant);
-
-        return targetClass;
+        class_.addMethod(checkInvariant);
     }
 
     private void applyToMethod(ClassNode class_, MethodNode method, MethodNode checkInvariant) {
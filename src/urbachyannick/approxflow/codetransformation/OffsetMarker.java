@@ -7,32 +7,69 @@ import urbachyannick.approxflow.cnf.*;
 import urbachyannick.approxflow.javasignatures.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static urbachyannick.approxflow.MiscUtil.*;
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.findMainMethod;
 
-public class OffsetMarker extends Transformation.PerClassNoExcept {
+/**
+ * Adds an array with random content to the main class, and finds it in the variable table of the generated CNF to
+ * determine the offset between the addresses of JBMC's dynamic arrays and the values of reference variables.
+ */
+public class OffsetMarker extends Transformation.PerClassEdit {
 
-    private static final int markerSize = 1;
+    // 256 random bits, so that another array matching the marker (and a restart with a different one) is practically
+    // impossible
+    public static final int defaultMarkerSize = 4;
 
     private static final String markerName = "$$offsetMarker";
     private static final String markerType = "[J";
 
-    private final long[] marker = new long[markerSize];
+    // Fixed so that the transformed bytecode (and thereby the cache keys of the generated CNF) is reproducible. Only
+    // changed by reseed in the unlikely case that another array happens to contain the marker.
+    private static final long defaultSeed = 0x3c6ef372fe94f82bL;
+
+    private final int markerSize;
+    private final long[] marker;
     private ClassName className;
+    private long seed = defaultSeed;
+
+    // by identity; the scanners of one problem all need the offset
+    private final Map<MappedProblem, Integer> addressOffsets = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public OffsetMarker() {
+        this(defaultMarkerSize);
+    }
+
+    /**
+     * @param markerSize the number of random longs in the marker array
+     */
+    public OffsetMarker(int markerSize) {
+        if (markerSize < 1)
+            throw new IllegalArgumentException("Marker size must be positive");
+
+        this.markerSize = markerSize;
+        marker = new long[markerSize];
+    }
+
+    public void reseed() {
+        seed = new Random().nextLong();
+        addressOffsets.clear();
+    }
+
+    public void resetSeed() {
+        seed = defaultSeed;
+        addressOffsets.clear();
+    }
 
     @Override
-    protected ClassNode applyToClass(ClassNode sourceClass) {
+    protected void applyToClass(ClassEdit class_) {
+        ClassNode sourceClass = class_.get();
 
         if (sourceClass.methods.stream().anyMatch(BytecodeUtil::isMainMethod)) {
 
-            ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-            sourceClass.accept(targetClass);
+            className = ClassName.tryParseFromTypeSpecifier("L" + sourceClass.name + ";", new MutableInteger(0));
 
-            className = ClassName.tryParseFromTypeSpecifier("L" + targetClass.name + ";", new MutableInteger(0));
-
-            MethodNode mainMethod = findMainMethod(targetClass).get();
+            MethodNode mainMethod = class_.editMethod(findMainMethod(sourceClass).get());
 
             FieldNode outputArray = new FieldNode(
                     Opcodes.ASM5,
@@ -42,9 +79,9 @@ public class OffsetMarker extends Transformation.PerClassNoExcept {
                     null,
                     null
             );
-            targetClass.fields.add(outputArray);
+            class_.addField(outputArray);
 
-            Random random = new Random();
+            Random random = new Random(seed);
 
             InsnList initInstructions = new InsnList();
 
@@ -60,44 +97,46 @@ public class OffsetMarker extends Transformation.PerClassNoExcept {
                 initInstructions.add(new InsnNode(PrimitiveType.LONG.getArrayStoreOpcode()));
             }
 
-            initInstructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, targetClass.name, markerName, markerType));
+            initInstructions.add(new FieldInsnNode(Opcodes.PUTSTATIC, sourceClass.name, markerName, markerType));
 
             mainMethod.instructions.insertBefore(mainMethod.instructions.getFirst(), initInstructions);
-
-            return targetClass;
         }
-
-        return sourceClass;
     }
 
-    private boolean matchesMarker(long index, List<VariableMapping> mappings) {
-        if (mappings == null)
+    private boolean matchesMarker(int index, Optional<VariableMapping> latest) {
+        if (!latest.isPresent())
             return false;
 
-        Optional<VariableMapping> maxOpt = mappings.stream().max(VariableMapping::compareByGeneration);
-
-        if (!maxOpt.isPresent())
-            return false;
-
-        VariableMapping max = maxOpt.get();
-
-        if (!max.getMappingValues().allMatch(MappingValue::isTrivial))
+        if (!latest.get().getMappingValues().allMatch(MappingValue::isTrivial))
             return false;
 
-        return parseLongFromTrivialLiterals(max.getMappingValues().map(v -> (TrivialMappingValue) v)) == marker[(int) index];
+        return parseLongFromTrivialLiterals(latest.get().getMappingValues().map(v -> (TrivialMappingValue) v)) == marker[index];
     }
 
-    private boolean matchesMarker(Map<Long, List<VariableMapping>> mappingsByElementIndex) {
+    // looks up the marker elements by index, so only the first element of arrays that are not the marker is decoded
+    private boolean matchesMarker(VariableTable varTable, long arrayAddress) {
         for (int i = 0; i < markerSize; ++i) {
-            List<VariableMapping> mappings = mappingsByElementIndex.get((long) i);
-
-            if (!matchesMarker(i, mappings))
+            if (!matchesMarker(i, varTable.getLatest(new DynamicArraySignature(arrayAddress, i))))
                 return false;
         }
 
         return true;
     }
 
+    /**
+     * @return the address offset in the problem, computed once per problem
+     */
+    public int getAddressOffset(MappedProblem problem) {
+        Integer offset = addressOffsets.get(problem);
+
+        if (offset == null) {
+            offset = getAddressOffset(problem.getVariableTable());
+            addressOffsets.put(problem, offset);
+        }
+
+        return offset;
+    }
+
     public int getAddressOffset(VariableTable varTable) {
         Signature referenceSignature = new JavaSignature(className, new FieldAccess(markerName));
         VariableMapping referenceMapping = JavaVarToCnfVar.lastMapping(varTable, referenceSignature).get();
@@ -106,15 +145,8 @@ public class OffsetMarker extends Transformation.PerClassNoExcept {
         int offset = 0;
         int matchingCount = 0;
 
-        Map<Long, List<VariableMapping>> mappingsByArrayAddress = varTable.getMappings()
-                .filter(m -> m.getSignature() instanceof DynamicArraySignature)
-                .collect(Collectors.groupingBy(m -> ((DynamicArraySignature) m.getSignature()).getAddress()));
-
-        for (long arrayAddress : mappingsByArrayAddress.keySet()) {
-            Map<Long, List<VariableMapping>> mappingsByElementIndex = mappingsByArrayAddress.get(arrayAddress).stream()
-                    .collect(Collectors.groupingBy(m -> ((DynamicArraySignature) m.getSignature()).getElementIndex()));
-
-            if (matchesMarker(mappingsByElementIndex)) {
+        for (long arrayAddress : varTable.getArrayAddresses()) {
+            if (matchesMarker(varTable, arrayAddress)) {
                 offset = (int) (referenceAddress - arrayAddress);
                 matchingCount++;
             }
@@ -1,15 +1,14 @@
 package urbachyannick.approxflow.codetransformation;
 
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.*;
 import urbachyannick.approxflow.cnf.*;
 
-import java.util.List;
-import java.util.stream.*;
+import java.util.function.IntConsumer;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class OutputVariable implements Scanner<IntStream> {
+public class OutputVariable extends Scanner.PerClass {
 
     private final OffsetMarker offsetMarker;
 
@@ -18,20 +17,13 @@ public class OutputVariable implements Scanner<IntStream> {
     }
 
     @Override
-    public IntStream scan(Stream<ClassNode> sourceClasses, MappedProblem problem) {
-        List<ClassNode> classes = sourceClasses.collect(Collectors.toList());
-
-        int addressOffset = offsetMarker.getAddressOffset(problem.getVariableTable());
-
-        return classes.stream().flatMapToInt(class_ ->
-                class_.fields.stream()
-                        .filter(field ->
-                                hasFlag(field.access, Opcodes.ACC_STATIC) &&
-                                hasAnnotation(field.visibleAnnotations, "Lurbachyannick/approxflow/PublicOutput;")
-                        )
-                        .flatMapToInt(field ->
-                                JavaVarToCnfVar.variablesForStaticField(classes, problem.getVariableTable(), class_, field, addressOffset)
-                        )
-        );
+    public void scanClass(ClassHierarchy classes, ClassNode sourceClass, MappedProblem problem, IntConsumer variables) {
+        for (FieldNode field : sourceClass.fields) {
+            if (!hasFlag(field.access, Opcodes.ACC_STATIC) || !hasAnnotation(field.visibleAnnotations, "Lurbachyannick/approxflow/PublicOutput;"))
+                continue;
+
+            JavaVarToCnfVar.variablesForStaticField(classes, problem.getVariableTable(), sourceClass, field, offsetMarker.getAddressOffset(problem))
+                    .forEach(variables);
+        }
     }
 }
@@ -24,16 +24,19 @@ import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 //
 // parameters with <maxInstances> <= 0 (including those of the overflow methods generated by this class) are handled by
 // ParameterOutputOverApproximated.
-public class ParameterOutput extends Transformation.PerClassNoExcept {
+public class ParameterOutput extends Transformation.PerClassEdit {
 
     @Override
-    public ClassNode applyToClass(ClassNode sourceClass) {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-        sourceClass.accept(targetClass);
+    public void applyToClass(ClassEdit class_) {
+        List<OutputParameter> parameters = getOutputParameters(class_.get()).collect(Collectors.toList());
 
-        MethodNode classInit = targetClass.methods.stream()
+        if (parameters.isEmpty())
+            return;
+
+        MethodNode classInit = class_.get().methods.stream()
                 .filter(m -> m.name.equals("<clinit>"))
                 .findFirst()
+                .map(class_::editMethod)
                 .orElseGet(() -> {
                     MethodNode m = new MethodNode(
                             Opcodes.ASM5,
@@ -44,19 +47,16 @@ public class ParameterOutput extends Transformation.PerClassNoExcept {
                             null
                     );
                     m.instructions.add(new InsnNode(Opcodes.RETURN));
-                    targetClass.methods.add(m);
+                    class_.addMethod(m);
                     return m;
                 });
 
-        List<OutputParameter> parameters = getOutputParameters(targetClass).collect(Collectors.toList());
-
         for (OutputParameter parameter : parameters)
-            applyForParameter(targetClass, classInit, parameter);
-
-        return targetClass;
+            applyForParameter(class_, classInit, parameter);
     }
 
-    private static void applyForParameter(ClassNode class_, MethodNode classInit, OutputParameter parameter) {
+    private static void applyForParameter(ClassEdit classEdit, MethodNode classInit, OutputParameter parameter) {
+        ClassNode class_ = classEdit.get();
         String methodQualifiedName = parameter.method.name + "$$" + parameter.parameterIndex;
         String arrayName = "$$" + methodQualifiedName + "$$array";
         String counterName = "$$" + methodQualifiedName + "$$counter";
@@ -73,7 +73,7 @@ public class ParameterOutput extends Transformation.PerClassNoExcept {
         );
         outputArray.visibleAnnotations = new ArrayList<>();
         outputArray.visibleAnnotations.add(new AnnotationNode(Opcodes.ASM5, "Lurbachyannick/approxflow/PublicOutput;"));
-        class_.fields.add(outputArray);
+        classEdit.addField(outputArray);
 
         FieldNode counter = new FieldNode(
                 Opcodes.ASM5,
@@ -86,7 +86,7 @@ public class ParameterOutput extends Transformation.PerClassNoExcept {
         counter.visibleAnnotations = new ArrayList<>();
         // already included in io order, so obsolete now
         // counter.visibleAnnotations.add(new AnnotationNode(Opcodes.ASM5, "Lurbachyannick/approxflow/PublicOutput;"));
-        class_.fields.add(counter);
+        classEdit.addField(counter);
 
         MethodNode overflowMethod = new MethodNode(
                 Opcodes.ASM5,
@@ -114,7 +114,7 @@ public class ParameterOutput extends Transformation.PerClassNoExcept {
             maxLocals = 1;
         }};
 
-        class_.methods.add(overflowMethod);
+        classEdit.addMethod(overflowMethod);
 
         LabelNode startLabel = new LabelNode();
         LabelNode skipLabel = new LabelNode();
@@ -158,7 +158,8 @@ public class ParameterOutput extends Transformation.PerClassNoExcept {
             add(new FieldInsnNode(Opcodes.PUTSTATIC, class_.name, counterName, "I"));
         }};
 
-        parameter.method.instructions.insertBefore(parameter.method.instructions.getFirst(), newInstructions);
+        MethodNode method = classEdit.editMethod(parameter.method);
+        method.instructions.insertBefore(method.instructions.getFirst(), newInstructions);
 
 
         InsnList classInitInstructions = new InsnList() {{
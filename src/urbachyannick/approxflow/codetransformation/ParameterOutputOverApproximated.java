@@ -3,10 +3,9 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.tree.ClassNode;
 import urbachyannick.approxflow.cnf.*;
 
-import java.util.List;
-import java.util.stream.*;
+import java.util.function.IntConsumer;
 
-public class ParameterOutputOverApproximated implements Scanner<IntStream> {
+public class ParameterOutputOverApproximated extends Scanner.PerClass {
 
     private final OffsetMarker offsetMarker;
 
@@ -15,22 +14,17 @@ public class ParameterOutputOverApproximated implements Scanner<IntStream> {
     }
 
     @Override
-    public IntStream scan(Stream<ClassNode> sourceClasses, MappedProblem problem) {
-        List<ClassNode> classes = sourceClasses.collect(Collectors.toList());
-
-        int addressOffset = offsetMarker.getAddressOffset(problem.getVariableTable());
-
-        return classes.stream().flatMapToInt(sourceClass ->
-                ParameterOutput.getOutputParameters(sourceClass)
-                        .filter(parameter -> parameter.maxInstances <= 0)
-                        .flatMapToInt(parameter -> JavaVarToCnfVar.variablesForMethodParameter(
-                                classes,
-                                problem.getVariableTable(),
-                                sourceClass,
-                                parameter.method,
-                                parameter.parameterIndex,
-                                addressOffset
-                        ))
-        );
+    public void scanClass(ClassHierarchy classes, ClassNode sourceClass, MappedProblem problem, IntConsumer variables) {
+        ParameterOutput.getOutputParameters(sourceClass)
+                .filter(parameter -> parameter.maxInstances <= 0)
+                .flatMapToInt(parameter -> JavaVarToCnfVar.variablesForMethodParameter(
+                        classes,
+                        problem.getVariableTable(),
+                        sourceClass,
+                        parameter.method,
+                        parameter.parameterIndex,
+                        offsetMarker.getAddressOffset(problem)
+                ))
+                .forEach(variables);
     }
 }
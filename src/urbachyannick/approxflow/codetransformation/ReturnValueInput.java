@@ -7,27 +7,21 @@ import urbachyannick.approxflow.javasignatures.*;
 import java.util.*;
 import java.util.stream.*;
 
-public class ReturnValueInput implements Transformation {
+public class ReturnValueInput extends Transformation.WithHierarchy {
     @Override
-    public Stream<ClassNode> apply(Stream<ClassNode> sourceClasses) throws InvalidTransformationException {
+    public Stream<ClassNode> apply(ClassHierarchy sourceClasses) throws InvalidTransformationException {
         Stream.Builder<ClassNode> streamBuilder = Stream.builder();
 
-        List<ClassNode> sourceClassList = sourceClasses.collect(Collectors.toList());
-
-        for (ClassNode sourceClass : sourceClassList)
-            streamBuilder.accept(applyToClass(sourceClass, sourceClassList));
+        for (ClassNode sourceClass : sourceClasses.getClasses())
+            streamBuilder.accept(applyToClass(sourceClass, sourceClasses));
 
         return streamBuilder.build();
     }
 
-    private ClassNode applyToClass(ClassNode sourceClass, List<ClassNode> classes) throws InvalidTransformationException {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-
-        sourceClass.accept(targetClass);
-
-        for (int i = 0; i < sourceClass.methods.size(); ++i) {
-            MethodNode sourceMethod = sourceClass.methods.get(i);
+    private ClassNode applyToClass(ClassNode sourceClass, ClassHierarchy classes) throws InvalidTransformationException {
+        ClassEdit class_ = new ClassEdit(sourceClass);
 
+        for (MethodNode sourceMethod : sourceClass.methods) {
             if (sourceMethod.visibleAnnotations == null)
                 continue;
 
@@ -41,13 +35,13 @@ public class ReturnValueInput implements Transformation {
                 continue;
 
             TypeSpecifier returnType = TypeSpecifier.parse(Type.getReturnType(sourceMethod.desc).getDescriptor(), new MutableInteger(0));
-            MethodNode targetMethod = targetClass.methods.get(i);
+            MethodNode targetMethod = class_.editMethod(sourceMethod);
 
             targetMethod.instructions.clear();
-            targetMethod.instructions.add(Nondet.generateNondetRecursive(returnType, classes.stream()));
+            targetMethod.instructions.add(Nondet.generateNondetRecursive(returnType, classes));
             targetMethod.instructions.add(new InsnNode(returnType.asPrimitive().getReturnOpcode()));
         }
 
-        return targetClass;
+        return class_.get();
     }
 }
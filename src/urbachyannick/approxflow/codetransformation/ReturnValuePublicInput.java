@@ -3,13 +3,11 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.tree.*;
 import urbachyannick.approxflow.cnf.*;
 
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.*;
+import java.util.function.IntConsumer;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class ReturnValuePublicInput implements Scanner<IntStream> {
+public class ReturnValuePublicInput extends Scanner.PerClass {
 
     private final OffsetMarker offsetMarker;
 
@@ -18,29 +16,18 @@ public class ReturnValuePublicInput implements Scanner<IntStream> {
     }
 
     @Override
-    public IntStream scan(Stream<ClassNode> sourceClasses, MappedProblem problem) {
-        List<ClassNode> classList = sourceClasses.collect(Collectors.toList());
-        List<IntStream> variableStreams = new ArrayList<>();
-
-        int addressOffset = offsetMarker.getAddressOffset(problem.getVariableTable());
-
-        for (ClassNode sourceClass : classList) {
-            for (MethodNode sourceMethod : sourceClass.methods) {
-                if (!hasAnnotation(sourceMethod.visibleAnnotations, "Lurbachyannick/approxflow/PublicInput;"))
-                    continue;
-
-                variableStreams.add(
-                        JavaVarToCnfVar.variablesForMethodReturnValues(
-                            classList,
-                            problem.getVariableTable(),
-                            sourceClass,
-                            sourceMethod,
-                            addressOffset
-                        )
-                );
-            }
+    public void scanClass(ClassHierarchy classes, ClassNode sourceClass, MappedProblem problem, IntConsumer variables) {
+        for (MethodNode sourceMethod : sourceClass.methods) {
+            if (!hasAnnotation(sourceMethod.visibleAnnotations, "Lurbachyannick/approxflow/PublicInput;"))
+                continue;
+
+            JavaVarToCnfVar.variablesForMethodReturnValues(
+                    classes,
+                    problem.getVariableTable(),
+                    sourceClass,
+                    sourceMethod,
+                    offsetMarker.getAddressOffset(problem)
+            ).forEach(variables);
         }
-
-        return variableStreams.stream().flatMapToInt(Function.identity());
     }
 }
@@ -3,8 +3,42 @@ package urbachyannick.approxflow.codetransformation;
 import org.objectweb.asm.tree.ClassNode;
 import urbachyannick.approxflow.cnf.MappedProblem;
 
-import java.util.stream.Stream;
+import java.util.function.IntConsumer;
+import java.util.stream.*;
 
 public interface Scanner<T> {
     T scan(Stream<ClassNode> sourceClass, MappedProblem problem);
+
+    default T scan(ClassHierarchy classes, MappedProblem problem) {
+        return scan(classes.getClasses().stream(), problem);
+    }
+
+    /**
+     * Scanner of variables that looks at one class at a time. Several of them can scan the classes in a single pass,
+     * passing the variables to a consumer instead of returning a stream each.
+     */
+    abstract class PerClass implements Scanner<IntStream> {
+        /**
+         * @param classes all classes, for resolving the types of the variables
+         * @param sourceClass the class to scan
+         * @param problem the problem
+         * @param variables receives the variables found in the class
+         */
+        public abstract void scanClass(ClassHierarchy classes, ClassNode sourceClass, MappedProblem problem, IntConsumer variables);
+
+        @Override
+        public IntStream scan(Stream<ClassNode> sourceClasses, MappedProblem problem) {
+            return scan(new ClassHierarchy(sourceClasses), problem);
+        }
+
+        @Override
+        public IntStream scan(ClassHierarchy classes, MappedProblem problem) {
+            IntStream.Builder variables = IntStream.builder();
+
+            for (ClassNode sourceClass : classes.getClasses())
+                scanClass(classes, sourceClass, problem, variables);
+
+            return variables.build();
+        }
+    }
 }
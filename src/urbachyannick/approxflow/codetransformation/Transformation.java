@@ -9,6 +9,27 @@ import java.util.stream.Stream;
 public interface Transformation {
     Stream<ClassNode> apply(Stream<ClassNode> classes) throws InvalidTransformationException;
 
+    /**
+     * Applies the transformation to classes that are already indexed, so several transformations and scanners of a
+     * pipeline stage can share the index.
+     */
+    default Stream<ClassNode> apply(ClassHierarchy classes) throws InvalidTransformationException {
+        return apply(classes.getClasses().stream());
+    }
+
+    /**
+     * Transformation that looks up classes or methods, e.g. the targets of call instructions.
+     */
+    abstract class WithHierarchy implements Transformation {
+        @Override
+        public abstract Stream<ClassNode> apply(ClassHierarchy classes) throws InvalidTransformationException;
+
+        @Override
+        public Stream<ClassNode> apply(Stream<ClassNode> classes) throws InvalidTransformationException {
+            return apply(new ClassHierarchy(classes));
+        }
+    }
+
     abstract class PerClass implements Transformation {
         protected abstract ClassNode applyToClass(ClassNode sourceClass) throws InvalidTransformationException;
 
@@ -24,6 +45,27 @@ public interface Transformation {
         }
     }
 
+    /**
+     * Transformation that looks at one class at a time, and copies only what it modifies (see {@link ClassEdit}).
+     */
+    abstract class PerClassEdit implements Transformation {
+        protected abstract void applyToClass(ClassEdit class_) throws InvalidTransformationException;
+
+        @Override
+        public Stream<ClassNode> apply(Stream<ClassNode> sourceClasses) throws InvalidTransformationException {
+            Stream.Builder<ClassNode> streamBuilder = Stream.builder();
+            Iterator<ClassNode> i = sourceClasses.iterator();
+
+            while (i.hasNext()) {
+                ClassEdit class_ = new ClassEdit(i.next());
+                applyToClass(class_);
+                streamBuilder.accept(class_.get());
+            }
+
+            return streamBuilder.build();
+        }
+    }
+
     abstract class PerClassNoExcept extends PerClass {
         protected abstract ClassNode applyToClass(ClassNode sourceClass);
 
@@ -7,7 +7,7 @@ import java.util.*;
 
 import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 
-public class UnrollLoops extends Transformation.PerClass {
+public class UnrollLoops extends Transformation.PerClassEdit {
 
     private final Integer defaultIterations;
     private final boolean blackboxByDefault;
@@ -18,31 +18,31 @@ public class UnrollLoops extends Transformation.PerClass {
     }
 
     @Override
-    protected ClassNode applyToClass(ClassNode sourceClass) throws InvalidTransformationException {
-        ClassNode targetClass = new ClassNode(Opcodes.ASM5);
-
-        sourceClass.accept(targetClass);
+    protected void applyToClass(ClassEdit class_) {
+        ClassNode sourceClass = class_.get();
 
         Optional<AnnotationNode> classBlackbox = getAnnotation(sourceClass.visibleAnnotations, "Lurbachyannick/approxflow/BlackboxLoops;");
         Optional<AnnotationNode> classUnroll = getAnnotation(sourceClass.visibleAnnotations, "Lurbachyannick/approxflow/Unroll;");
         Optional<Object> classIterations = classUnroll.flatMap(a -> getAnnotationValue(a, "iterations"));
 
-        for (MethodNode m : targetClass.methods) {
+        for (MethodNode m : sourceClass.methods) {
             Optional<AnnotationNode> methodBlackbox = getAnnotation(m.visibleAnnotations, "Lurbachyannick/approxflow/BlackboxLoops;");
             Optional<AnnotationNode> methodUnroll = getAnnotation(m.visibleAnnotations, "Lurbachyannick/approxflow/Unroll;");
             Optional<Object> methodIterations = methodUnroll.flatMap(a -> getAnnotationValue(a, "iterations"));
 
             boolean blackbox = blackboxByDefault || classBlackbox.isPresent() || methodBlackbox.isPresent();
+            Optional<Integer> iterations;
 
             if (methodIterations.isPresent())
-                applyToInstructions(m.instructions, methodIterations.map(i -> (int) i), blackbox);
+                iterations = methodIterations.map(i -> (int) i);
             else if (classIterations.isPresent())
-                applyToInstructions(m.instructions, classIterations.map(i -> (int) i), blackbox);
+                iterations = classIterations.map(i -> (int) i);
             else
-                applyToInstructions(m.instructions, Optional.ofNullable(defaultIterations), blackbox);
-        }
+                iterations = Optional.ofNullable(defaultIterations);
 
-        return targetClass;
+            if (hasLoopToUnroll(m.instructions, iterations))
+                applyToInstructions(class_.editMethod(m).instructions, iterations, blackbox);
+        }
     }
 
     private static boolean isCall(AbstractInsnNode instruction) {
@@ -53,6 +53,29 @@ public class UnrollLoops extends Transformation.PerClass {
         return i.owner.equals("urbachyannick/approxflow/Loops") && i.name.equals("unroll");
     }
 
+    // whether applyToInstructions changes anything, i.e. there is a backward jump to a label after which the number of
+    // iterations is known
+    private static boolean hasLoopToUnroll(InsnList instructions, Optional<Integer> methodIterations) {
+        Set<LabelNode> labels = new HashSet<>();
+
+        Optional<Integer> count = methodIterations;
+
+        for (AbstractInsnNode instruction : instructions) {
+            Optional<Object> constant = BytecodeUtil.readConstantInstruction(instruction);
+
+            if (constant.isPresent() && constant.get() instanceof Integer && isCall(instruction.getNext()))
+                count = Optional.of((Integer) constant.get());
+
+            if (instruction.getType() == AbstractInsnNode.LABEL && count.isPresent())
+                labels.add((LabelNode) instruction);
+
+            if (instruction.getType() == AbstractInsnNode.JUMP_INSN && labels.contains(((JumpInsnNode) instruction).label))
+                return true;
+        }
+
+        return false;
+    }
+
     private void applyToInstructions(InsnList instructions, Optional<Integer> methodIterations, boolean blackbox) {
         Map<LabelNode, Integer> labels = new HashMap<>();
 
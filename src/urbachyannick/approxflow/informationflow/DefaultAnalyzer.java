@@ -7,6 +7,8 @@ import urbachyannick.approxflow.cnf.*;
 import urbachyannick.approxflow.codetransformation.*;
 import urbachyannick.approxflow.modelcounting.*;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.stream.*;
 
@@ -33,26 +35,32 @@ public class DefaultAnalyzer implements FlowAnalyzer {
 
     @Override
     public double analyzeInformationFlow(Stream<ClassNode> classes, IOCallbacks ioCallbacks) {
-        List<ClassNode> classList = transformClasses(classes).collect(Collectors.toList());
+        Metrics metrics = ioCallbacks.getMetrics();
+        List<ClassNode> classList = transformClasses(classes, metrics).collect(Collectors.toList());
 
-        MappedProblem problem = generateCnf(classList.stream(), ioCallbacks);
-        Scope countVars = getScope(countVarScanners.stream(), classList.stream(), problem);
-        Scope maxVars = getScope(maxVarScanners.stream(), classList.stream(), problem);
+        MappedProblem problem = metrics.time("cnf", cnfGenerator.getClass().getSimpleName(), () -> generateCnf(classList.stream(), ioCallbacks));
+        metrics.recordValue("cnf", "variables", problem.getProblem().getVariableCount());
+        metrics.recordValue("cnf", "clauses", problem.getProblem().getClauseCount());
 
-        MaxModelCountingProblem countingProblem = new MaxModelCountingProblem(problem, countVars, maxVars);
+        MaxModelCountingProblem countingProblem = scan(classList, problem, metrics);
+        metrics.recordValue("scope", "countVars", countingProblem.getCountVars().size());
+        metrics.recordValue("scope", "maxVars", countingProblem.getMaxVars().size());
 
-        if (!countingProblem.getCountVars().getVariables().findAny().isPresent())
+        if (countingProblem.getCountVars().isEmpty())
             return 0;
 
-        double solutions = countSolutions(countingProblem, ioCallbacks);
+        double solutions = metrics.time("counter", modelCounter.getClass().getSimpleName(), () -> countSolutions(countingProblem, ioCallbacks));
 
         return Math.log(solutions) / Math.log(2);
     }
 
-    private Stream<ClassNode> transformClasses(Stream<ClassNode> classes) {
+    private Stream<ClassNode> transformClasses(Stream<ClassNode> classes, Metrics metrics) {
         try {
-            for (Transformation t : transformations)
-                classes = t.apply(classes);
+            for (Transformation t : transformations) {
+                // transformations are lazy, so the result is collected to attribute the time to the right one
+                ClassHierarchy input = new ClassHierarchy(classes);
+                classes = metrics.time("transformation", t.getClass().getSimpleName(), () -> t.apply(input).collect(Collectors.toList())).stream();
+            }
         } catch (InvalidTransformationException e) {
             throw new Fail("Error during transformation", e);
         }
@@ -68,16 +76,52 @@ public class DefaultAnalyzer implements FlowAnalyzer {
         }
     }
 
-    private Scope getScope(Stream<Scanner<IntStream>> scanners, Stream<ClassNode> classes, MappedProblem problem) {
-        List<ClassNode> classList = classes.collect(Collectors.toList());
+    private static class ScannerRun {
+        public final Scanner<IntStream> scanner;
+        public final BitSet variables;
+        public long nanoseconds;
 
-        return new Scope(
-                scanners
-                        .flatMap(s -> s.scan(classList.stream(), problem).boxed())
-                        .collect(Collectors.toList())
-                        .stream()
-                        .mapToInt(Integer::intValue)
-        );
+        public ScannerRun(Scanner<IntStream> scanner, BitSet variables) {
+            this.scanner = scanner;
+            this.variables = variables;
+        }
+    }
+
+    // Runs all count and max scanners. Per-class scanners share a single pass over the classes, and all scanners share
+    // the class hierarchy. The variables are collected into bit sets, which also removes duplicates.
+    private MaxModelCountingProblem scan(List<ClassNode> classes, MappedProblem problem, Metrics metrics) {
+        ClassHierarchy hierarchy = new ClassHierarchy(classes);
+        BitSet countVars = new BitSet(problem.getVariableCount() + 1);
+        BitSet maxVars = new BitSet(problem.getVariableCount() + 1);
+
+        List<ScannerRun> runs = new ArrayList<>();
+        countVarScanners.forEach(s -> runs.add(new ScannerRun(s, countVars)));
+        maxVarScanners.forEach(s -> runs.add(new ScannerRun(s, maxVars)));
+
+        List<ScannerRun> perClassRuns = new ArrayList<>();
+
+        for (ScannerRun run : runs) {
+            if (run.scanner instanceof Scanner.PerClass) {
+                perClassRuns.add(run);
+            } else {
+                long start = System.nanoTime();
+                run.scanner.scan(hierarchy, problem).forEach(run.variables::set);
+                run.nanoseconds += System.nanoTime() - start;
+            }
+        }
+
+        for (ClassNode sourceClass : classes) {
+            for (ScannerRun run : perClassRuns) {
+                long start = System.nanoTime();
+                ((Scanner.PerClass) run.scanner).scanClass(hierarchy, sourceClass, problem, run.variables::set);
+                run.nanoseconds += System.nanoTime() - start;
+            }
+        }
+
+        for (ScannerRun run : runs)
+            metrics.recordTime("scanner", run.scanner.getClass().getSimpleName(), run.nanoseconds);
+
+        return new MaxModelCountingProblem(problem, new Scope(countVars), new Scope(maxVars));
     }
 
     private double countSolutions(MaxModelCountingProblem problem, IOCallbacks ioCallbacks) {
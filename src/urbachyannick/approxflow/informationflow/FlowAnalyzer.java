@@ -5,6 +5,13 @@ import urbachyannick.approxflow.IOCallbacks;
 
 import java.util.stream.Stream;
 
-public interface FlowAnalyzer {
+public interface FlowAnalyzer extends AutoCloseable {
     double analyzeInformationFlow(Stream<ClassNode> classes, IOCallbacks ioCallbacks);
+
+    /**
+     * Releases resources held across analyses, such as worker threads.
+     */
+    @Override
+    default void close() {
+    }
 }
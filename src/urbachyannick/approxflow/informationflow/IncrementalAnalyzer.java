@@ -0,0 +1,96 @@
+package urbachyannick.approxflow.informationflow;
+
+import org.objectweb.asm.tree.ClassNode;
+import urbachyannick.approxflow.*;
+import urbachyannick.approxflow.cache.*;
+import urbachyannick.approxflow.codetransformation.Fingerprints;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Decorator for a flow analyzer that reuses the result of an earlier analysis of the same program, stored in a
+ * {@link DiskCache}. Programs are identified by {@link Fingerprints#ofProgram}, so editing code that can not be
+ * executed from the main method (or only changing line numbers) keeps the result. The configuration must describe
+ * everything else the result depends on, such as the options of the analysis and the toString of the CNF generator and
+ * model counter, and the tools hash the files of approxflow, JBMC and the model counters, so updating them does not
+ * return the flows of the old versions.
+ */
+public class IncrementalAnalyzer implements FlowAnalyzer {
+    public interface ToolsHash {
+        String compute(IOCallbacks ioCallbacks) throws IOException;
+    }
+
+    private final FlowAnalyzer analyzer;
+    private final DiskCache cache;
+    private final String namespace;
+    private final String configuration;
+    private final ToolsHash toolsHash;
+
+    /**
+     * @param analyzer the analyzer to run if there is no earlier result
+     * @param cache the cache to store the results in
+     * @param namespace the cache namespace, e.g. "flow" for whole programs or "stage" for the stages of the blackbox
+     *                  analysis
+     * @param configuration description of the options the result depends on
+     * @param toolsHash hash of the files of the tools the result depends on
+     */
+    public IncrementalAnalyzer(FlowAnalyzer analyzer, DiskCache cache, String namespace, String configuration, ToolsHash toolsHash) {
+        this.analyzer = analyzer;
+        this.cache = cache;
+        this.namespace = namespace;
+        this.configuration = configuration;
+        this.toolsHash = toolsHash;
+    }
+
+    @Override
+    public double analyzeInformationFlow(Stream<ClassNode> classes, IOCallbacks ioCallbacks) {
+        List<ClassNode> classList = classes.collect(Collectors.toList());
+
+        String key;
+
+        try {
+            key = ioCallbacks.getMetrics().time("incremental", "fingerprint", () -> new CacheKey()
+                    .add(configuration)
+                    .add(toolsHash.compute(ioCallbacks))
+                    .add(Fingerprints.ofProgram(classList))
+                    .build()
+            );
+        } catch (IOException e) {
+            throw new Fail("Could not compute cache key", e);
+        }
+
+        Optional<Double> previous = cache
+                .getBytes(namespace, key)
+                .map(b -> new String(b, StandardCharsets.UTF_8))
+                .flatMap(IncrementalAnalyzer::parseDouble);
+
+        if (previous.isPresent())
+            return previous.get();
+
+        double result = analyzer.analyzeInformationFlow(classList.stream(), ioCallbacks);
+
+        try {
+            cache.putBytes(namespace, key, Double.toString(result).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Warning: could not store flow in cache: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        analyzer.close();
+    }
+
+    private static Optional<Double> parseDouble(String s) {
+        try {
+            return Optional.of(Double.parseDouble(s.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -62,6 +62,7 @@ public class DynamicArraySignature extends Signature {
         return elementIndex;
     }
 
+    @Override
     public VariableIndices getIndices() {
         return indices;
     }
@@ -90,4 +91,14 @@ public class DynamicArraySignature extends Signature {
 
         return other.address == address && other.elementIndex == elementIndex;
     }
+
+    @Override
+    public DynamicArraySignature withIndices(VariableIndices indices) {
+        return new DynamicArraySignature(address, elementIndex, indices);
+    }
+
+    @Override
+    public Signature stripIndices() {
+        return indices.equals(VariableIndices.NONE) ? this : new DynamicArraySignature(address, elementIndex);
+    }
 }
@@ -59,6 +59,7 @@ public class DynamicObjectSignature extends Signature {
         return fieldName;
     }
 
+    @Override
     public VariableIndices getIndices() {
         return indices;
     }
@@ -87,4 +88,14 @@ public class DynamicObjectSignature extends Signature {
 
         return other.address == address && other.fieldName.equals(fieldName);
     }
+
+    @Override
+    public DynamicObjectSignature withIndices(VariableIndices indices) {
+        return new DynamicObjectSignature(address, fieldName, indices);
+    }
+
+    @Override
+    public Signature stripIndices() {
+        return indices.equals(VariableIndices.NONE) ? this : new DynamicObjectSignature(address, fieldName);
+    }
 }
@@ -42,8 +42,14 @@ public class FunctionCall extends MemberAccess {
 
         List<TypeSpecifier> parameterTypes = new ArrayList<>();
 
-        while (!ParseUtil.checkConstant(input, ")", offset))
-            parameterTypes.add(TypeSpecifier.parse(input, offset));
+        while (!ParseUtil.checkConstant(input, ")", offset)) {
+            TypeSpecifier parameterType = TypeSpecifier.parse(input, offset);
+
+            if (parameterType == null)
+                throw new SignatureParseException("Expected parameter type or \")\"", offset.get());
+
+            parameterTypes.add(parameterType);
+        }
 
         TypeSpecifier returnType = TypeSpecifier.parse(input, offset);
         FunctionCallVariable variable = FunctionCallVariable.parse(input, offset);
@@ -33,6 +33,7 @@ public class JavaSignature extends Signature {
         return Objects.hash(className, memberAccess, indices);
     }
 
+    @Override
     public VariableIndices getIndices() {
         return indices;
     }
@@ -47,6 +48,17 @@ public class JavaSignature extends Signature {
         return className.equals(o.className) && memberAccess.equals(o.memberAccess);
     }
 
+    @Override
+    public Signature stripIndices() {
+        return indices.equals(VariableIndices.NONE) ? this : new JavaSignature(className, memberAccess);
+    }
+
+    // shares the class name and member access with this signature
+    @Override
+    public JavaSignature withIndices(VariableIndices indices) {
+        return new JavaSignature(className, memberAccess, indices);
+    }
+
     @Override
     public String toString() {
         return "java::" + className.asQualifiedName() + memberAccess.toString() + indices.toString();
@@ -1,57 +1,47 @@
 package urbachyannick.approxflow.javasignatures;
 
-import java.util.HashSet;
-
 public class ParseUtil {
-    private static final HashSet<Character> hexDigits = new HashSet<Character>() {{
-        add('0'); add('1'); add('2'); add('3'); add('4'); add('5'); add('6'); add('7'); add('8'); add('9');
-        add('A'); add('B'); add('C'); add('D'); add('E'); add('F');
-        add('a'); add('b'); add('c'); add('d'); add('e'); add('f');
-    }};
-    
+    public static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+    }
+
     public static long parseNumber(String input, MutableInteger inoutOffset) {
-        int start = inoutOffset.get();
         int offset = inoutOffset.get();
+        int end = skipDigits(input, offset);
 
-        while (Character.isDigit(input.charAt(offset)))
-            ++offset;
-
-        if (start == offset)
-            throw new SignatureParseException("Expected digit, got \"" + input.charAt(offset) + "\"", offset);
+        if (offset == end)
+            throw new SignatureParseException("Expected digit, got \"" + charAt(input, offset) + "\"", offset);
 
-        inoutOffset.set(offset);
+        inoutOffset.set(end);
 
-        return Long.parseLong(input.substring(start, offset));
+        return accumulate(input, offset, end, 10);
     }
 
     public static long parseHexNumber(String input, MutableInteger inoutOffset) {
-        int start = inoutOffset.get();
         int offset = inoutOffset.get();
+        int end = offset;
 
-        while (hexDigits.contains(input.charAt(offset)))
-            ++offset;
+        while (end < input.length() && isHexDigit(input.charAt(end)))
+            ++end;
 
-        if (start == offset)
-            throw new SignatureParseException("Expected hex digit, got \"" + input.charAt(offset) + "\"", offset);
+        if (offset == end)
+            throw new SignatureParseException("Expected hex digit, got \"" + charAt(input, offset) + "\"", offset);
 
-        inoutOffset.set(offset);
+        inoutOffset.set(end);
 
-        return Long.parseLong(input.substring(start, offset), 16);
+        return accumulate(input, offset, end, 16);
     }
 
     public static Long tryParseNumber(String input, MutableInteger inoutOffset) {
-        int start = inoutOffset.get();
         int offset = inoutOffset.get();
+        int end = skipDigits(input, offset);
 
-        while (Character.isDigit(input.charAt(offset)))
-            ++offset;
-
-        if (start == offset)
+        if (offset == end)
             return null;
 
-        inoutOffset.set(offset);
+        inoutOffset.set(end);
 
-        return Long.valueOf(input.substring(start, offset));
+        return accumulate(input, offset, end, 10);
     }
 
     public static boolean checkConstant(String input, String constant, MutableInteger offset) {
@@ -61,4 +51,32 @@ public class ParseUtil {
         offset.add(constant.length());
         return true;
     }
+
+    private static int skipDigits(String input, int offset) {
+        while (offset < input.length() && Character.isDigit(input.charAt(offset)))
+            ++offset;
+
+        return offset;
+    }
+
+    // like Long.parseLong(input.substring(start, end), radix), without the substring
+    private static long accumulate(String input, int start, int end, int radix) {
+        long limit = Long.MAX_VALUE / radix;
+        long value = 0;
+
+        for (int i = start; i < end; ++i) {
+            int digit = Character.digit(input.charAt(i), radix);
+
+            if (value > limit || value * radix > Long.MAX_VALUE - digit)
+                throw new NumberFormatException("For input string: \"" + input.substring(start, end) + "\"");
+
+            value = value * radix + digit;
+        }
+
+        return value;
+    }
+
+    private static String charAt(String input, int offset) {
+        return offset < input.length() ? String.valueOf(input.charAt(offset)) : "end of input";
+    }
 }
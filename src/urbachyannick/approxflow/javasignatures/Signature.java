@@ -1,20 +1,29 @@
 package urbachyannick.approxflow.javasignatures;
 
 public abstract class Signature {
+    /**
+     * Parses a single signature. Signatures of the same file should be parsed with one {@link SignatureParser}, which
+     * shares the parts they have in common.
+     */
     public static Signature parse(String input) {
-        Signature signature = JavaSignature.tryParse(input);
+        return new SignatureParser().parse(input);
+    }
 
-        if (signature == null)
-            signature = DynamicArraySignature.tryParse(input);
+    public abstract boolean matches(Signature signature);
 
-        if (signature == null)
-            signature = DynamicObjectSignature.tryParse(input);
+    /**
+     * @return this signature without thread, instance and generation numbers; two signatures match exactly if their
+     * stripped signatures are equal
+     */
+    public abstract Signature stripIndices();
 
-        if (signature == null)
-            signature = new UnparsedSignature(input);
+    /**
+     * @return the thread, instance and generation numbers; {@link VariableIndices#NONE} for signatures without them
+     */
+    public abstract VariableIndices getIndices();
 
-        return signature;
-    }
-
-    public abstract boolean matches(Signature signature);
+    /**
+     * @return a signature matching this one with the given indices; the inverse of {@link #stripIndices()}
+     */
+    public abstract Signature withIndices(VariableIndices indices);
 }
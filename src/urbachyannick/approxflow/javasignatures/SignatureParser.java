@@ -0,0 +1,341 @@
+package urbachyannick.approxflow.javasignatures;
+
+/**
+ * Parses signatures of variable lines in a single pass. The kind of signature is picked from its prefix instead of
+ * trying each kind in turn, and numbers are parsed in place. The class name and member access of Java signatures are
+ * only parsed the first time they are seen by a parser; later signatures of the same member (i.e. other generations)
+ * share the ClassName and MemberAccess instances. Produces the same signatures as trying {@link JavaSignature#tryParse},
+ * {@link DynamicArraySignature#tryParse} and {@link DynamicObjectSignature#tryParse} in turn.
+ * <p>
+ * The parsed members are kept as long as the parser, so a parser should be used for the signatures of one file (e.g.
+ * by its reader or variable table). Parsers can be used concurrently.
+ */
+public class SignatureParser {
+    private static final String javaPrefix = "java::";
+    private static final String dynamicArrayPrefix = "symex_dynamic::dynamic_";
+    private static final String dynamicObjectPrefix = "symex_dynamic::dynamic_object";
+
+    // java::<class>.<member> -> signature without indices
+    private final InternTable<JavaSignature> members = new InternTable<>();
+    private final InternTable<String> fieldNames = new InternTable<>();
+
+    public Signature parse(String input) {
+        Signature signature = null;
+
+        if (input.startsWith(javaPrefix))
+            signature = parseJava(input);
+        else if (input.startsWith(dynamicObjectPrefix))
+            signature = parseDynamicObject(input);
+        else if (input.startsWith(dynamicArrayPrefix))
+            signature = parseDynamicArray(input);
+
+        return signature != null ? signature : new UnparsedSignature(input);
+    }
+
+    private Signature parseJava(String input) {
+        int memberEnd = indicesStart(input);
+        int memberHash = hash(input, 0, memberEnd);
+        JavaSignature withoutIndices = members.get(input, 0, memberEnd, memberHash);
+
+        if (withoutIndices == null) {
+            withoutIndices = parseMember(input, memberEnd);
+
+            if (withoutIndices == null)
+                return JavaSignature.tryParse(input);
+
+            withoutIndices = members.put(input.substring(0, memberEnd), memberHash, withoutIndices);
+        }
+
+        VariableIndices indices = parseIndices(input, memberEnd, input.length());
+
+        if (indices == null)
+            return null;
+
+        return withoutIndices.withIndices(indices);
+    }
+
+    private static JavaSignature parseMember(String input, int memberEnd) {
+        MutableInteger offset = new MutableInteger(javaPrefix.length());
+
+        try {
+            ClassName className = ClassName.parseWithMember(input, offset);
+            MemberAccess memberAccess = MemberAccess.parse(input, offset);
+
+            if (offset.get() != memberEnd)
+                return null;
+
+            return new JavaSignature(className, memberAccess);
+        } catch (SignatureParseException e) {
+            return null;
+        }
+    }
+
+    // symex_dynamic::dynamic_<address>_array<indices>[[<hex element index>]]
+    private static Signature parseDynamicArray(String input) {
+        int offset = dynamicArrayPrefix.length();
+        int addressEnd = skipDigits(input, offset);
+
+        if (addressEnd == offset || !input.startsWith("_array", addressEnd))
+            return null;
+
+        long address = parseLong(input, offset, addressEnd, 10);
+        offset = addressEnd + "_array".length();
+
+        int indicesEnd = indexOf(input, '[', offset);
+        VariableIndices indices = parseIndices(input, offset, indicesEnd);
+
+        if (indices == null || !input.startsWith("[[", indicesEnd) || !input.endsWith("]]"))
+            return null;
+
+        int elementStart = indicesEnd + 2;
+        int elementEnd = input.length() - 2;
+
+        if (elementEnd <= elementStart)
+            return null;
+
+        for (int i = elementStart; i < elementEnd; ++i) {
+            if (!ParseUtil.isHexDigit(input.charAt(i)))
+                return null;
+        }
+
+        long elementIndex = parseLong(input, elementStart, elementEnd, 16);
+
+        if (address < 0 || elementIndex < 0)
+            return null;
+
+        return new DynamicArraySignature(address, elementIndex, indices);
+    }
+
+    // symex_dynamic::dynamic_object<address><indices>..<field name>
+    private Signature parseDynamicObject(String input) {
+        int offset = dynamicObjectPrefix.length();
+        int addressEnd = skipDigits(input, offset);
+
+        if (addressEnd == offset)
+            return null;
+
+        long address = parseLong(input, offset, addressEnd, 10);
+
+        int indicesEnd = input.indexOf("..", addressEnd);
+
+        if (indicesEnd < 0)
+            return null;
+
+        VariableIndices indices = parseIndices(input, addressEnd, indicesEnd);
+        int nameStart = indicesEnd + 2;
+
+        if (indices == null || address < 0 || nameStart == input.length())
+            return null;
+
+        for (int i = nameStart; i < input.length(); ++i) {
+            if (!Character.isJavaIdentifierPart(input.charAt(i)))
+                return null;
+        }
+
+        int nameHash = hash(input, nameStart, input.length());
+        String fieldName = fieldNames.get(input, nameStart, input.length(), nameHash);
+
+        if (fieldName == null) {
+            fieldName = input.substring(nameStart);
+            fieldName = fieldNames.put(fieldName, nameHash, fieldName);
+        }
+
+        return new DynamicObjectSignature(address, fieldName, indices);
+    }
+
+    /**
+     * @return the start of the indices at the end of the input (!&lt;thread&gt;@&lt;instance&gt;#&lt;generation&gt;,
+     * each optional), or the length of the input if there are none
+     */
+    private static int indicesStart(String input) {
+        int end = input.length();
+        end = stripNumber(input, end, '#');
+        end = stripNumber(input, end, '@');
+        end = stripNumber(input, end, '!');
+        return end;
+    }
+
+    private static int stripNumber(String input, int end, char marker) {
+        int start = end;
+
+        while (start > 0 && isDigit(input.charAt(start - 1)))
+            --start;
+
+        if (start == end || start == 0 || input.charAt(start - 1) != marker)
+            return end;
+
+        return start - 1;
+    }
+
+    /**
+     * @return the indices in input[offset] to input[end - 1], or null if that is not exactly a list of indices
+     */
+    private static VariableIndices parseIndices(String input, int offset, int end) {
+        long thread = -1;
+        long instance = -1;
+        long generation = -1;
+        int nextMarker = 0;
+
+        while (offset < end) {
+            int marker = "!@#".indexOf(input.charAt(offset), nextMarker);
+
+            if (marker < 0)
+                return null;
+
+            int numberEnd = Math.min(skipDigits(input, offset + 1), end);
+
+            if (numberEnd == offset + 1)
+                return null;
+
+            long value = parseLong(input, offset + 1, numberEnd, 10);
+
+            if (value < 0)
+                return null;
+
+            if (marker == 0)
+                thread = value;
+            else if (marker == 1)
+                instance = value;
+            else
+                generation = value;
+
+            nextMarker = marker + 1;
+            offset = numberEnd;
+        }
+
+        if (thread < 0 && instance < 0 && generation < 0)
+            return VariableIndices.NONE;
+
+        return new VariableIndices((int) thread, (int) instance, (int) generation);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipDigits(String input, int offset) {
+        while (offset < input.length() && isDigit(input.charAt(offset)))
+            ++offset;
+
+        return offset;
+    }
+
+    private static int indexOf(String input, char c, int offset) {
+        int index = input.indexOf(c, offset);
+        return index < 0 ? input.length() : index;
+    }
+
+    /**
+     * @return the number in input[start] to input[end - 1], which must all be digits, or -1 if it does not fit
+     */
+    private static long parseLong(String input, int start, int end, int radix) {
+        long limit = Long.MAX_VALUE / radix;
+        long value = 0;
+
+        for (int i = start; i < end; ++i) {
+            int digit = Character.digit(input.charAt(i), radix);
+
+            if (value > limit || value * radix > Long.MAX_VALUE - digit)
+                return -1;
+
+            value = value * radix + digit;
+        }
+
+        return value;
+    }
+
+    // like String.hashCode of input.substring(start, end)
+    private static int hash(String input, int start, int end) {
+        int hash = 0;
+
+        for (int i = start; i < end; ++i)
+            hash = 31 * hash + input.charAt(i);
+
+        return hash;
+    }
+
+    /**
+     * Values by the strings they were parsed from, looked up by a region of the input, so looking up a string that was
+     * seen before allocates nothing. Open addressing with linear probing; entries are never removed. Lookups are lock
+     * free (they may miss an entry added concurrently, which is then parsed again and not added twice), additions are
+     * synchronized.
+     */
+    private static class InternTable<T> {
+        private static class Entry<T> {
+            final String key;
+            final int hash;
+            final T value;
+
+            Entry(String key, int hash, T value) {
+                this.key = key;
+                this.hash = hash;
+                this.value = value;
+            }
+        }
+
+        private volatile Entry<T>[] entries = newEntries(16);
+        private int size;
+
+        public T get(String input, int start, int end, int hash) {
+            Entry<T>[] e = entries;
+            int mask = e.length - 1;
+            Entry<T> entry;
+
+            for (int i = spread(hash) & mask; (entry = e[i]) != null; i = (i + 1) & mask) {
+                if (entry.hash == hash && entry.key.length() == end - start && input.regionMatches(start, entry.key, 0, end - start))
+                    return entry.value;
+            }
+
+            return null;
+        }
+
+        /**
+         * @return the value already added for the key, or else the given one
+         */
+        public synchronized T put(String key, int hash, T value) {
+            T existing = get(key, 0, key.length(), hash);
+
+            if (existing != null)
+                return existing;
+
+            Entry<T>[] e = entries;
+
+            if (2 * (size + 1) > e.length) {
+                // published when complete, so lookups never see a partially filled table
+                Entry<T>[] grown = newEntries(2 * e.length);
+
+                for (Entry<T> entry : e) {
+                    if (entry != null)
+                        insert(grown, entry);
+                }
+
+                insert(grown, new Entry<>(key, hash, value));
+                entries = grown;
+            } else {
+                insert(e, new Entry<>(key, hash, value));
+            }
+
+            ++size;
+            return value;
+        }
+
+        private static <T> void insert(Entry<T>[] e, Entry<T> entry) {
+            int mask = e.length - 1;
+            int i = spread(entry.hash) & mask;
+
+            while (e[i] != null)
+                i = (i + 1) & mask;
+
+            e[i] = entry;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Entry<T>[] newEntries(int length) {
+            return (Entry<T>[]) new Entry[length];
+        }
+    }
+}
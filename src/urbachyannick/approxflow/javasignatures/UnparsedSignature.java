@@ -33,4 +33,20 @@ public class UnparsedSignature extends Signature {
     public boolean matches(Signature signature) {
         return equals(signature);
     }
+
+    @Override
+    public Signature stripIndices() {
+        return this;
+    }
+
+    @Override
+    public VariableIndices getIndices() {
+        return VariableIndices.NONE;
+    }
+
+    // the indices, if any, are part of the text
+    @Override
+    public Signature withIndices(VariableIndices indices) {
+        return this;
+    }
 }
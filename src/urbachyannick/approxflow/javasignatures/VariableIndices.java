@@ -12,6 +12,8 @@ public class VariableIndices {
     // c: generation number (L2); incremented for every potential modification
     private final int generation;
 
+    public static final VariableIndices NONE = new VariableIndices(-1, -1, -1);
+
     public VariableIndices(int thread, int instance, int generation) {
         this.thread = thread;
         this.instance = instance;
@@ -19,7 +21,6 @@ public class VariableIndices {
     }
 
     public static VariableIndices parse(String input, MutableInteger inoutOffset) {
-        input = input + " "; // sentinel
         int thread = -1;
         int instance = -1;
         int generation = -1;
@@ -1,6 +1,7 @@
 package urbachyannick.approxflow.modelcounting;
 
 import urbachyannick.approxflow.IOCallbacks;
+import urbachyannick.approxflow.MiscUtil;
 import urbachyannick.approxflow.cnf.*;
 
 import java.io.IOException;
@@ -27,15 +28,20 @@ public class ApproxMC implements ModelCounter {
             outputPath = ioCallbacks.createTemporaryFile("approxmc-log.txt");
             ioCallbacks.createTemporaryFile("approxmc-input.cnf.scope");
 
-            IO.write(problem, cnfFilePath);
+            ioCallbacks.getMetrics().time("io", "writeCnf", () -> {
+                IO.write(problem, cnfFilePath);
+                return null;
+            });
         } catch (IOException e) {
             throw new ModelCountingException("Can not write temporary CNF file", e);
         }
 
+        long start = System.nanoTime();
+
         try {
             ProcessBuilder.Redirect out = ProcessBuilder.Redirect.to(outputPath.toFile());
 
-            new ProcessBuilder()
+            Process process = new ProcessBuilder()
                     .command(
                             "approxmc",
                             cnfFilePath.toString(),
@@ -44,11 +50,14 @@ public class ApproxMC implements ModelCounter {
                     )
                     .redirectOutput(out)
                     .redirectError(out)
-                    .start()
-                    .waitFor();
+                    .start();
+
+            MiscUtil.waitForProcess(process);
 
         } catch (IOException | InterruptedException e) {
             throw new ModelCountingException("Failed to run SAT solver", e);
+        } finally {
+            ioCallbacks.getMetrics().recordTime("process", "approxmc", System.nanoTime() - start);
         }
 
         Pattern pattern = Pattern.compile("s mc (\\d+)");
@@ -65,4 +74,9 @@ public class ApproxMC implements ModelCounter {
             throw new ModelCountingException("Failed to read SAT solver result", e);
         }
     }
+
+    @Override
+    public String toString() {
+        return "ApproxMC(epsilon=" + epsilon + ", delta=" + delta + ")";
+    }
 }
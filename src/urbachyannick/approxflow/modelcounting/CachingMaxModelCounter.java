@@ -0,0 +1,121 @@
+package urbachyannick.approxflow.modelcounting;
+
+import urbachyannick.approxflow.*;
+import urbachyannick.approxflow.cache.*;
+import urbachyannick.approxflow.cnf.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Decorator for a max model counter that stores results in a {@link DiskCache}. The key covers the clauses, the count
+ * and max variables, the identity of the wrapped counter as given by its toString (which must therefore include all
+ * parameters affecting the result, such as epsilon, delta and k) and the files of the counters (the approxmc binary
+ * and the MaxCount directory), so updating a counter does not return the counts of the old version.
+ */
+public class CachingMaxModelCounter implements MaxModelCounter {
+    public static final String NAMESPACE = "count";
+
+    private final MaxModelCounter counter;
+    private final DiskCache cache;
+    private volatile String toolsHash;
+
+    public CachingMaxModelCounter(MaxModelCounter counter, DiskCache cache) {
+        this.counter = counter;
+        this.cache = cache;
+    }
+
+    @Override
+    public double count(MaxModelCountingProblem problem, IOCallbacks ioCallbacks) throws ModelCountingException {
+        String key;
+
+        try {
+            key = key(problem, ioCallbacks);
+        } catch (IOException e) {
+            throw new ModelCountingException("Could not compute cache key", e);
+        }
+
+        Optional<Double> cached = cache
+                .getBytes(NAMESPACE, key)
+                .map(b -> new String(b, StandardCharsets.UTF_8))
+                .flatMap(CachingMaxModelCounter::parseDouble);
+
+        if (cached.isPresent())
+            return cached.get();
+
+        double result = counter.count(problem, ioCallbacks);
+
+        try {
+            cache.putBytes(NAMESPACE, key, Double.toString(result).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Warning: could not store model count in cache: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    private String key(MaxModelCountingProblem problem, IOCallbacks ioCallbacks) throws IOException {
+        Problem p = problem.getProblem();
+
+        return new CacheKey()
+                .add(counter.toString())
+                .add(toolsHash(ioCallbacks))
+                .add(problem instanceof ModelCountingProblem)
+                .add(p.getVariableCount())
+                .add(p.getDimacsLiterals())
+                .add(problem.getCountVars().getVariables().sorted())
+                .add(problem.getMaxVars().getVariables().sorted())
+                .build();
+    }
+
+    /**
+     * Hash of the files of the counters (the approxmc binary and the MaxCount directory). They do not change during a
+     * run, so they are only hashed once.
+     */
+    public String toolsHash(IOCallbacks ioCallbacks) throws IOException {
+        String hash = toolsHash;
+
+        if (hash != null)
+            return hash;
+
+        CacheKey key = new CacheKey();
+        Optional<Path> approxmc = FilesUtil.resolveFromPathVariable(Paths.get("approxmc"));
+
+        if (approxmc.isPresent())
+            key.addFile(approxmc.get());
+
+        // maxcount.py and the solvers it runs
+        Path maxcount = ioCallbacks.findInProgramDirectory(Paths.get("util", "meelgroup-maxcount"));
+
+        if (Files.isDirectory(maxcount)) {
+            List<Path> files;
+
+            try (Stream<Path> s = Files.list(maxcount)) {
+                files = s.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+
+            for (Path file : files)
+                key.add(file.getFileName().toString()).addFile(file);
+        }
+
+        hash = key.build();
+        toolsHash = hash;
+        return hash;
+    }
+
+    private static Optional<Double> parseDouble(String s) {
+        try {
+            return Optional.of(Double.parseDouble(s.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingMaxModelCounter(" + counter + ")";
+    }
+}
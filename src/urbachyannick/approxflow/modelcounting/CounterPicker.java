@@ -16,9 +16,14 @@ public class CounterPicker implements MaxModelCounter {
     public double count(MaxModelCountingProblem problem, IOCallbacks ioCallbacks) throws ModelCountingException {
         if (problem instanceof ModelCountingProblem)
             return maxModelCounter.count(problem, ioCallbacks);
-        if (problem.getMaxVars().getVariables().findAny().isPresent())
+        if (!problem.getMaxVars().isEmpty())
             return maxModelCounter.count(problem, ioCallbacks);
 
         return modelCounter.count(new ModelCountingProblem(problem.getMappedProblem(), problem.getCountVars()), ioCallbacks);
     }
+
+    @Override
+    public String toString() {
+        return "CounterPicker(" + maxModelCounter + ", " + modelCounter + ")";
+    }
 }
@@ -31,15 +31,20 @@ public class MaxCount implements MaxModelCounter {
             outputPath = ioCallbacks.createTemporaryFile("maxcount-log.txt");
             ioCallbacks.createTemporaryFile("maxcount-input.cnf.scope");
 
-            IO.write(problem, cnfFilePath);
+            ioCallbacks.getMetrics().time("io", "writeCnf", () -> {
+                IO.write(problem, cnfFilePath);
+                return null;
+            });
         } catch (IOException e) {
             throw new ModelCountingException("Can not write temporary CNF file", e);
         }
 
+        long start = System.nanoTime();
+
         try {
             ProcessBuilder.Redirect out = ProcessBuilder.Redirect.to(outputPath.toFile());
 
-            new ProcessBuilder()
+            Process process = new ProcessBuilder()
                     .command(
                             "python",
                             "maxcount.py",
@@ -52,11 +57,14 @@ public class MaxCount implements MaxModelCounter {
                     .directory(ioCallbacks.findInProgramDirectory(Paths.get("util", "meelgroup-maxcount")).toFile())
                     .redirectOutput(out)
                     .redirectError(out)
-                    .start()
-                    .waitFor();
+                    .start();
+
+            MiscUtil.waitForProcess(process);
 
         } catch (IOException | InterruptedException e) {
             throw new ModelCountingException("Failed to run SAT solver", e);
+        } finally {
+            ioCallbacks.getMetrics().recordTime("process", "maxcount", System.nanoTime() - start);
         }
 
         Pattern estimatedPattern = Pattern.compile("c Estimated max-count: ([\\d.]+) x (\\d+)\\^(\\d+)");
@@ -89,4 +97,9 @@ public class MaxCount implements MaxModelCounter {
                 })
                 .findFirst();
     }
+
+    @Override
+    public String toString() {
+        return "MaxCount(k=" + k + ", epsilon=" + epsilon + ", lowerBoundConfidence=" + lowerBoundConfidence + ", upperBoundConfidence=" + upperBoundConfidence + ")";
+    }
 }
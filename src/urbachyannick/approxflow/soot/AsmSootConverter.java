@@ -9,14 +9,35 @@ import urbachyannick.approxflow.*;
 
 import java.io.*;
 import java.nio.file.*;
-import java.util.stream.Stream;
+import java.util.*;
+import java.util.stream.*;
 
 public class AsmSootConverter {
+    // the library part of the class path of the current scene, or null if soot has not been initialized
+    private static String sceneLibraryPath;
+
+    // the classes of the analyzed program (and those generated by transformations) in the current scene
+    private static final List<SootClass> programClasses = new ArrayList<>();
+
+    /**
+     * Prepares soot for the analysis of a program. The library classes (of the JDK, the JBMC core models and
+     * approxflow) are only resolved the first time; later calls with the same library just discard the classes of the
+     * previous program (see {@link #discardProgramClasses}), so the resolved library classes are kept for the next one.
+     */
     public static void initSoot(IOCallbacks ioCallbacks) {
         Path coreModelsPath = ioCallbacks.findInProgramDirectory(Paths.get("res/jbmc-core-models.jar"));
         Path jarPath = ioCallbacks.getJarPath();
+        String libraryPath = jarPath + File.pathSeparator + coreModelsPath;
+
+        if (libraryPath.equals(sceneLibraryPath)) {
+            discardProgramClasses();
+            return;
+        }
 
         soot.G.reset();
+        programClasses.clear();
+        sceneLibraryPath = null;
+
         soot.G g = soot.G.v();
 
         soot.options.Options options = soot.options.Options.v();
@@ -42,17 +63,58 @@ public class AsmSootConverter {
         scene.setSootClassPath(scene.defaultClassPath());
         scene.extendSootClassPath(jarPath.toString());
         scene.extendSootClassPath(coreModelsPath.toString());
+        scene.loadNecessaryClasses();
+        sceneLibraryPath = libraryPath;
+    }
+
+    /**
+     * Removes the classes added by {@link #addProgramClass} from the scene, without resetting soot.
+     */
+    public static void discardProgramClasses() {
+        Scene scene = Scene.v();
+
+        for (SootClass c : programClasses) {
+            if (c.isInScene())
+                scene.removeClass(c);
+        }
+
+        programClasses.clear();
+    }
+
+    /**
+     * Adds a class of the analyzed program, or one generated by a transformation, to the scene. It is removed again
+     * by {@link #discardProgramClasses}.
+     */
+    public static void addProgramClass(SootClass class_) {
+        Scene.v().addClass(class_);
+        programClasses.add(class_);
     }
 
     public static SootClass toSoot(ClassNode asmClass) {
         SootClass sootClass = SootClassAdapter.toSoot(asmClass);
         Scene.v().loadNecessaryClasses();
-        Scene.v().addClass(sootClass);
+        addProgramClass(sootClass);
         return sootClass;
     }
 
+    /**
+     * Converts the classes and adds them to the scene, loading the necessary classes only once for all of them.
+     */
     public static Stream<SootClass> toSoot(Stream<ClassNode> asmClasses) {
-        return asmClasses.map(AsmSootConverter::toSoot);
+        return toSoot(asmClasses, Stream.empty());
+    }
+
+    /**
+     * Like {@link #toSoot(Stream)}, but also adds the classes referenced by the converted ones. Of those, only the
+     * signatures are converted (see {@link SootClassAdapter#toSootSignatures}), and they are not returned.
+     */
+    public static Stream<SootClass> toSoot(Stream<ClassNode> asmClasses, Stream<ClassNode> referencedClasses) {
+        List<SootClass> sootClasses = asmClasses.map(SootClassAdapter::toSoot).collect(Collectors.toList());
+        List<SootClass> signatureClasses = referencedClasses.map(SootClassAdapter::toSootSignatures).collect(Collectors.toList());
+        Scene.v().loadNecessaryClasses();
+        sootClasses.forEach(AsmSootConverter::addProgramClass);
+        signatureClasses.forEach(AsmSootConverter::addProgramClass);
+        return sootClasses.stream();
     }
 
     public static ClassNode toAsm(SootClass sootClass) {
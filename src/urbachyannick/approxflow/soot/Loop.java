@@ -1,58 +1,49 @@
 package urbachyannick.approxflow.soot;
 
+import soot.Unit;
 import soot.toolkits.graph.*;
 
 import java.util.*;
 import java.util.stream.*;
 
 public class Loop {
-    private final Jump backJump;
-
-    public Loop(Block header, Block backJump) {
-        this.backJump = new Jump(backJump, header);
+    private final Block header;
+    private final List<Jump> backJumps;
+    private final List<Block> bodyBlocks;
+    private final List<Unit> bodyUnits;
+
+    /**
+     * @param header the block all back jumps go to
+     * @param backJumps the jumps from inside the loop to the header
+     * @param bodyBlocks the blocks of the loop, including the header and those of nested loops, in method order
+     */
+    public Loop(Block header, List<Jump> backJumps, List<Block> bodyBlocks) {
+        this.header = header;
+        this.backJumps = backJumps;
+        this.bodyBlocks = bodyBlocks;
+
+        // taken now, as the blocks are invalid once the body is changed (e.g. by replacing another loop)
+        bodyUnits = bodyBlocks.stream().flatMap(SootUtil::getUnits).collect(Collectors.toList());
     }
 
     public Block getHeader() {
-        return backJump.getTo();
+        return header;
     }
 
-    public Jump getBackJump() {
-        return backJump;
+    public List<Jump> getBackJumps() {
+        return backJumps;
     }
 
     public Stream<Block> getLoopBodyBlocks() {
-        Set<Block> blocks = collectBodyBlocks(getHeader(), new HashSet<>()).stream()
-                .map(Jump::getTo)
-                .collect(Collectors.toSet());
-
-        blocks.add(getHeader());
-
-        return blocks.stream();
+        return bodyBlocks.stream();
     }
 
-    // walk all paths from current and return visited blocks if the path reaches backJump
-    private Set<Jump> collectBodyBlocks(Block current, Set<Jump> visited) {
-        if (current.equals(backJump.getFrom()))
-            return visited;
-
-        Stream<Set<Jump>> childResults = current.getSuccs().stream()
-                .filter(successor -> !successor.equals(getHeader()))
-                .map(successor -> new Jump(current, successor))
-                .filter(jump -> !visited.contains(jump))
-                .map(jump -> {
-                    Set<Jump> visitedParam = new HashSet<>(visited);
-                    visitedParam.add(jump);
-                    return collectBodyBlocks(jump.getTo(), visitedParam);
-                });
-
-        Set<Jump> result = new HashSet<>();
-        childResults.forEach(result::addAll);
-
-        return result;
+    public List<Unit> getLoopBodyUnits() {
+        return bodyUnits;
     }
 
     @Override
     public String toString() {
-        return String.format("Loop from %d to %d", getHeader().getIndexInMethod(), backJump.getFrom().getIndexInMethod());
+        return String.format("Loop at %d with %d blocks", header.getIndexInMethod(), bodyBlocks.size());
     }
 }
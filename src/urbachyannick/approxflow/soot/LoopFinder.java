@@ -3,36 +3,260 @@ package urbachyannick.approxflow.soot;
 import soot.toolkits.graph.*;
 import urbachyannick.approxflow.trees.Tree;
 
-import java.util.List;
+import java.util.*;
 import java.util.stream.*;
 
-// Uses dominator-based method as shown in
-// https://www.cs.colostate.edu/~mstrout/CS553Fall09/Slides/lecture12-control.ppt.pdf slide 6
-
+/**
+ * Finds the natural loops of a block graph and their nesting. Dominators are computed with the iterative algorithm of
+ * Cooper, Harvey and Kennedy ("A Simple, Fast Dominance Algorithm"). A loop consists of a header and all blocks that
+ * can reach one of its back jumps (jumps to a block dominating their origin) without passing the header. The loops are
+ * built from the innermost to the outermost, collapsing finished loops into their headers with a union-find structure
+ * as in Havlak's algorithm, so each block is only visited once per loop it is directly contained in.
+ */
 public class LoopFinder {
-    public static List<Tree<Loop>> findLoops(BlockGraph graph) {
-        DominatorsFinder<Block> dominatorsFinder = new MHGDominatorsFinder<>(graph);
+    private final List<Block> blocks;
+    private final int[] postOrderNumber;
+    private final Block[] byPostOrderNumber;
+    private final int[] idom;
+    private final int[] domPreOrder;
+    private final int[] domPostOrder;
 
-        List<Loop> loops = graph.getBlocks().stream()
-                .flatMap(block -> findLoops(dominatorsFinder, block))
-                .collect(Collectors.toList());
+    private LoopFinder(BlockGraph graph) {
+        blocks = graph.getBlocks();
+        int blockCount = blocks.size();
+
+        postOrderNumber = new int[blockCount];
+        Arrays.fill(postOrderNumber, -1);
+        byPostOrderNumber = new Block[blockCount];
+        int reachable = computePostOrder(graph.getHeads());
+
+        // a virtual root, preceding all heads, has the highest post order number
+        int root = reachable;
+        idom = new int[reachable + 1];
+        Arrays.fill(idom, -1);
+        idom[root] = root;
+
+        for (Block head : graph.getHeads())
+            idom[postOrderNumber[index(head)]] = root;
+
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            // reverse post order, without the virtual root
+            for (int n = reachable - 1; n >= 0; --n) {
+                if (idom[n] == root)
+                    continue;
+
+                int newIdom = -1;
+
+                for (Block predecessor : byPostOrderNumber[n].getPreds()) {
+                    int p = postOrderNumber[index(predecessor)];
+
+                    if (p < 0 || idom[p] < 0)
+                        continue;
+
+                    newIdom = newIdom < 0 ? p : intersect(p, newIdom);
+                }
+
+                if (newIdom >= 0 && idom[n] != newIdom) {
+                    idom[n] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+
+        domPreOrder = new int[reachable + 1];
+        domPostOrder = new int[reachable + 1];
+        numberDominatorTree(root);
+    }
+
+    private int index(Block block) {
+        return block.getIndexInMethod();
+    }
+
+    private int computePostOrder(List<Block> heads) {
+        int next = 0;
+        Deque<Block> stack = new ArrayDeque<>();
+        Deque<Iterator<Block>> successors = new ArrayDeque<>();
+        boolean[] visited = new boolean[blocks.size()];
+
+        for (Block head : heads) {
+            if (visited[index(head)])
+                continue;
+
+            visited[index(head)] = true;
+            stack.push(head);
+            successors.push(head.getSuccs().iterator());
+
+            while (!stack.isEmpty()) {
+                Iterator<Block> i = successors.peek();
+
+                if (i.hasNext()) {
+                    Block successor = i.next();
+
+                    if (!visited[index(successor)]) {
+                        visited[index(successor)] = true;
+                        stack.push(successor);
+                        successors.push(successor.getSuccs().iterator());
+                    }
+                } else {
+                    Block block = stack.pop();
+                    successors.pop();
+                    postOrderNumber[index(block)] = next;
+                    byPostOrderNumber[next] = block;
+                    ++next;
+                }
+            }
+        }
+
+        return next;
+    }
+
+    private int intersect(int a, int b) {
+        while (a != b) {
+            while (a < b)
+                a = idom[a];
+
+            while (b < a)
+                b = idom[b];
+        }
+
+        return a;
+    }
 
-        return toHierarchy(loops.stream());
+    // pre and post order numbers in the dominator tree, so dominance can be checked in constant time
+    private void numberDominatorTree(int root) {
+        List<List<Integer>> children = new ArrayList<>();
+
+        for (int n = 0; n < idom.length; ++n)
+            children.add(new ArrayList<>());
+
+        for (int n = 0; n < idom.length; ++n) {
+            if (n != root && idom[n] >= 0)
+                children.get(idom[n]).add(n);
+        }
+
+        int counter = 0;
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<Iterator<Integer>> pending = new ArrayDeque<>();
+        stack.push(root);
+        pending.push(children.get(root).iterator());
+        domPreOrder[root] = counter++;
+
+        while (!stack.isEmpty()) {
+            Iterator<Integer> i = pending.peek();
+
+            if (i.hasNext()) {
+                int child = i.next();
+                domPreOrder[child] = counter++;
+                stack.push(child);
+                pending.push(children.get(child).iterator());
+            } else {
+                domPostOrder[stack.pop()] = counter++;
+                pending.pop();
+            }
+        }
     }
 
-    private static Stream<Loop> findLoops(DominatorsFinder<Block> dominatorsFinder, Block block) {
-        return block.getSuccs().stream()
-                .filter(successor -> dominatorsFinder.isDominatedBy(block, successor))
-                .map(successor -> new Loop(successor, block));
+    private boolean dominates(Block dominator, Block block) {
+        int d = postOrderNumber[index(dominator)];
+        int b = postOrderNumber[index(block)];
+
+        if (d < 0 || b < 0)
+            return false;
+
+        return domPreOrder[d] <= domPreOrder[b] && domPostOrder[b] <= domPostOrder[d];
+    }
+
+    private List<Tree<Loop>> findLoops() {
+        // back jumps by header
+        Map<Block, List<Jump>> backJumps = new HashMap<>();
+
+        for (Block block : blocks) {
+            for (Block successor : block.getSuccs()) {
+                if (dominates(successor, block))
+                    backJumps.computeIfAbsent(successor, h -> new ArrayList<>()).add(new Jump(block, successor));
+            }
+        }
+
+        // inner loops are dominated by the headers of outer loops, so they come later in reverse post order
+        List<Block> headers = backJumps.keySet().stream()
+                .sorted(Comparator.comparingInt(h -> postOrderNumber[index(h)]))
+                .collect(Collectors.toList());
+
+        int[] representative = new int[blocks.size()];
+
+        for (int i = 0; i < representative.length; ++i)
+            representative[i] = i;
+
+        Map<Block, Tree<Loop>> loopsByHeader = new HashMap<>();
+        Set<Block> nested = new HashSet<>();
+
+        for (Block header : headers) {
+            List<Block> ownBlocks = new ArrayList<>();
+            List<Tree<Loop>> innerLoops = new ArrayList<>();
+            Set<Block> visited = new HashSet<>();
+            Deque<Block> pending = new ArrayDeque<>();
+
+            ownBlocks.add(header);
+            visited.add(header);
+
+            for (Jump jump : backJumps.get(header))
+                pending.add(jump.getFrom());
+
+            while (!pending.isEmpty()) {
+                Block block = blocks.get(find(representative, index(pending.remove())));
+
+                // skips entries into an irreducible part of the graph, which are not dominated by the header
+                if (!visited.add(block) || !dominates(header, block))
+                    continue;
+
+                Tree<Loop> innerLoop = loopsByHeader.get(block);
+
+                if (innerLoop != null && nested.add(block))
+                    innerLoops.add(innerLoop);
+                else if (innerLoop == null)
+                    ownBlocks.add(block);
+
+                pending.addAll(block.getPreds());
+            }
+
+            for (Block block : visited)
+                representative[index(block)] = index(header);
+
+            List<Block> bodyBlocks = Stream.concat(
+                    ownBlocks.stream(),
+                    innerLoops.stream().flatMap(l -> l.getValue().getLoopBodyBlocks())
+            ).sorted(Comparator.comparingInt(this::index)).collect(Collectors.toList());
+
+            innerLoops.sort(Comparator.comparingInt(l -> index(l.getValue().getHeader())));
+            Loop loop = new Loop(header, backJumps.get(header), bodyBlocks);
+            loopsByHeader.put(header, new Tree<>(loop, innerLoops.stream()));
+        }
+
+        return headers.stream()
+                .filter(h -> !nested.contains(h))
+                .sorted(Comparator.comparingInt(this::index))
+                .map(loopsByHeader::get)
+                .collect(Collectors.toList());
     }
 
-    private static List<Tree<Loop>> toHierarchy(Stream<Loop> loops) {
-        return Tree.fromSubordinateRelation(loops, LoopFinder::isNestedIn);
+    private static int find(int[] representative, int i) {
+        while (representative[i] != i) {
+            representative[i] = representative[representative[i]];
+            i = representative[i];
+        }
+
+        return i;
     }
 
-    // not ideal; somehow decide with dominator relation instead?
-    private static boolean isNestedIn(Loop ancestor, Loop descendant) {
-        return ancestor.getHeader().getIndexInMethod() <= descendant.getHeader().getIndexInMethod() &&
-                ancestor.getBackJump().getFrom().getIndexInMethod() >= descendant.getBackJump().getFrom().getIndexInMethod();
+    /**
+     * @return the outermost loops, ordered by the position of their headers in the method, with the loops nested in
+     * them as sub nodes
+     */
+    public static List<Tree<Loop>> findLoops(BlockGraph graph) {
+        return new LoopFinder(graph).findLoops();
     }
 }
@@ -1,5 +1,7 @@
 package urbachyannick.approxflow.soot;
 
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
 import soot.*;
 import soot.jimple.*;
 import soot.tagkit.*;
@@ -11,6 +13,7 @@ import urbachyannick.approxflow.trees.Tree;
 import java.util.*;
 import java.util.stream.*;
 
+import static urbachyannick.approxflow.codetransformation.BytecodeUtil.*;
 import static urbachyannick.approxflow.soot.SootUtil.*;
 
 public class LoopReplacer extends SootTransformation {
@@ -22,6 +25,45 @@ public class LoopReplacer extends SootTransformation {
         this.replaceByDefault = replaceByDefault;
     }
 
+    // only classes with methods that may contain loops to replace are converted to soot
+    @Override
+    protected boolean needsSoot(ClassNode class_) {
+        if (hasFlag(class_.access, Opcodes.ACC_INTERFACE))
+            return false;
+
+        boolean classBlackbox = replaceByDefault || hasAnnotation(class_.visibleAnnotations, "Lurbachyannick/approxflow/BlackboxLoops;");
+
+        return class_.methods.stream().anyMatch(m ->
+                (classBlackbox || hasAnnotation(m.visibleAnnotations, "Lurbachyannick/approxflow/BlackboxLoops;")) &&
+                hasBackwardJump(m)
+        );
+    }
+
+    // every loop contains a jump to the same or an earlier instruction
+    private static boolean hasBackwardJump(MethodNode method) {
+        InsnList instructions = method.instructions;
+
+        for (AbstractInsnNode instruction : instructions) {
+            Stream<LabelNode> targets;
+
+            if (instruction instanceof JumpInsnNode)
+                targets = Stream.of(((JumpInsnNode) instruction).label);
+            else if (instruction instanceof TableSwitchInsnNode)
+                targets = Stream.concat(Stream.of(((TableSwitchInsnNode) instruction).dflt), ((TableSwitchInsnNode) instruction).labels.stream());
+            else if (instruction instanceof LookupSwitchInsnNode)
+                targets = Stream.concat(Stream.of(((LookupSwitchInsnNode) instruction).dflt), ((LookupSwitchInsnNode) instruction).labels.stream());
+            else
+                continue;
+
+            int index = instructions.indexOf(instruction);
+
+            if (targets.anyMatch(t -> instructions.indexOf(t) <= index))
+                return true;
+        }
+
+        return false;
+    }
+
     @Override
     protected Stream<SootClass> applySoot(Stream<SootClass> classes) throws InvalidTransformationException {
         List<SootClass> classList = classes.collect(Collectors.toList());
@@ -57,53 +99,65 @@ public class LoopReplacer extends SootTransformation {
 
         Body body = method.retrieveActiveBody();
 
-        List<Tree<Loop>> loopHierarchy;
+        // The loops are found once. The outermost loops are disjoint, so replacing one leaves the units of the others
+        // in place, and the loops nested in it disappear with it.
+        List<Tree<Loop>> loopForest = LoopFinder.findLoops(new BriefBlockGraph(body));
+
+        if (loopForest.isEmpty())
+            return;
 
-        // apply to topmost loops
-        // regenerate block graph after every loop because the body changes
-        while (true) {
-            BlockGraph graph = new BriefBlockGraph(body);
-            loopHierarchy = LoopFinder.findLoops(graph);
+        // The definitions and uses are also only found once, in the original body. A replaced loop uses the variables
+        // it accessed from outside and assigns those it modified for the outside, so for the other loops, the variables
+        // defined and used outside of them stay the same.
+        LocalDefs localDefs = LocalDefs.Factory.newLocalDefs(body);
+        LocalUses localUses = LocalUses.Factory.newLocalUses(body, localDefs);
+        Map<Unit, Integer> unitIndices = new HashMap<>();
 
-            if (loopHierarchy.size() == 0)
-                break;
+        for (Unit unit : body.getUnits())
+            unitIndices.put(unit, unitIndices.size());
 
-            apply(method, graph, loopHierarchy.get(0).getValue(), classes);
-        }
+        while (!loopForest.isEmpty())
+            apply(method, loopForest.remove(0).getValue(), localDefs, localUses, unitIndices, classes);
     }
 
-    private void apply(SootMethod method, BlockGraph graph, Loop loop, List<SootClass> classes) throws InvalidTransformationException {
+    private void apply(SootMethod method, Loop loop, LocalDefs localDefs, LocalUses localUses, Map<Unit, Integer> unitIndices, List<SootClass> classes) throws InvalidTransformationException {
         Body body = method.retrieveActiveBody();
-        LocalUses localUses = LocalUses.Factory.newLocalUses(body);
 
         // find variables used in loop
         Unit loopHeadUnit = loop.getHeader().getHead();
-        List<Block> loopBodyBlocks = loop.getLoopBodyBlocks().collect(Collectors.toList());
-
-        List<Block> otherBlocks = graph.getBlocks().stream()
-                .filter(b -> !loopBodyBlocks.contains(b))
-                .collect(Collectors.toList());
-
-        List<Unit> loopBodyUnits = loopBodyBlocks.stream().flatMap(SootUtil::getUnits).collect(Collectors.toList());
-        List<Unit> otherUnits = otherBlocks.stream().flatMap(SootUtil::getUnits).collect(Collectors.toList());
+        List<Unit> loopBodyUnits = loop.getLoopBodyUnits();
+        Set<Unit> loopBodyUnitSet = new HashSet<>(loopBodyUnits);
+
+        // Ordered by their first definition outside the loop. Found from the uses in the loop, as a definition
+        // before many loops (or in one of them) has uses in all of them.
+        Map<Value, Integer> firstExternalDefinitions = new HashMap<>();
+
+        for (Unit unit : loopBodyUnits) {
+            for (ValueBox box : unit.getUseBoxes()) {
+                if (!(box.getValue() instanceof Local))
+                    continue;
+
+                for (Unit definition : localDefs.getDefsOfAt((Local) box.getValue(), unit)) {
+                    if (!loopBodyUnitSet.contains(definition))
+                        firstExternalDefinitions.merge(box.getValue(), unitIndices.get(definition), Math::min);
+                }
+            }
+        }
 
-        List<Value> externalVariableAccesses = otherBlocks.stream()
-                .flatMap(block -> getUnits(block).flatMap(u -> localUses.getUsesOf(u).stream()))
-                .filter(uvbp -> loopBodyUnits.contains(uvbp.unit))
-                .map(uvbp -> uvbp.valueBox.getValue())
-                .distinct()
+        List<Value> externalVariableAccesses = firstExternalDefinitions.keySet().stream()
+                .sorted(Comparator.comparing(firstExternalDefinitions::get))
                 .collect(Collectors.toList());
 
-        List<Value> externalVariableModifications = loopBodyBlocks.stream()
-                .flatMap(block -> getUnits(block).flatMap(u -> localUses.getUsesOf(u).stream()))
-                .filter(uvbp -> otherUnits.contains(uvbp.unit))
+        List<Value> externalVariableModifications = loopBodyUnits.stream()
+                .flatMap(u -> localUses.getUsesOf(u).stream())
+                .filter(uvbp -> !loopBodyUnitSet.contains(uvbp.unit))
                 .map(uvbp -> uvbp.valueBox.getValue())
                 .distinct()
                 .collect(Collectors.toList());
 
         // create return class
         SootClass returnClass = new SootClass("BlackboxReturnType$$" + methodsGenerated, Modifier.PUBLIC);
-        Scene.v().addClass(returnClass);
+        AsmSootConverter.addProgramClass(returnClass);
 
         // create blackbox method
         SootMethod blackboxMethod = createBlackboxMethod(
@@ -1,16 +1,37 @@
 package urbachyannick.approxflow.soot;
 
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.tree.ClassNode;
+import urbachyannick.approxflow.codetransformation.ClassEdit;
 import soot.SootClass;
 import soot.asm.*;
 
 class SootClassAdapter extends SootClassBuilder {
-    private SootClassAdapter(ClassNode class_) {
+    private final boolean signaturesOnly;
+
+    private SootClassAdapter(ClassNode class_, boolean signaturesOnly) {
         super(new SootClass(AsmUtil.toQualifiedName(class_.name)));
-        class_.accept(this);
+        this.signaturesOnly = signaturesOnly;
+        ClassEdit.accept(class_, this);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        MethodVisitor visitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+
+        // the method is added to the class by now; skipping the rest leaves it without a body
+        return signaturesOnly ? null : visitor;
     }
 
     public static SootClass toSoot(ClassNode class_) {
-        return new SootClassAdapter(class_).getKlass();
+        return new SootClassAdapter(class_, false).getKlass();
+    }
+
+    /**
+     * Converts only the class, its fields and the signatures of its methods. The methods have no bodies, so this is
+     * only for classes that are referenced by others, but not transformed or converted back themselves.
+     */
+    public static SootClass toSootSignatures(ClassNode class_) {
+        return new SootClassAdapter(class_, true).getKlass();
     }
 }
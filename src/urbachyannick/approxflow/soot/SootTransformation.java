@@ -4,15 +4,51 @@ import org.objectweb.asm.tree.ClassNode;
 import soot.*;
 import urbachyannick.approxflow.codetransformation.*;
 
-import java.util.stream.Stream;
+import java.util.*;
+import java.util.stream.*;
 
 public abstract class SootTransformation implements Transformation {
     protected abstract Stream<SootClass> applySoot(Stream<SootClass> classes) throws InvalidTransformationException;
 
+    /**
+     * Whether the transformation may change the class. Only those classes are converted, passed to {@link #applySoot}
+     * and converted back, the others are returned unchanged (but their signatures are still added to the scene, so
+     * references to them can be resolved).
+     */
+    protected boolean needsSoot(ClassNode class_) {
+        return true;
+    }
+
     @Override
     public Stream<ClassNode> apply(Stream<ClassNode> asmInputClasses) throws InvalidTransformationException {
-        Stream<SootClass> sootInputClasses = AsmSootConverter.toSoot(asmInputClasses);
-        Stream<SootClass> sootOutputClasses = applySoot(sootInputClasses);
-        return AsmSootConverter.toAsm(sootOutputClasses);
+        List<ClassNode> asmInputList = asmInputClasses.collect(Collectors.toList());
+        List<ClassNode> selectedClasses = new ArrayList<>();
+        List<ClassNode> unchangedClasses = new ArrayList<>();
+
+        for (ClassNode c : asmInputList)
+            (needsSoot(c) ? selectedClasses : unchangedClasses).add(c);
+
+        if (selectedClasses.isEmpty())
+            return asmInputList.stream();
+
+        Set<String> selectedNames = selectedClasses.stream().map(c -> c.name).collect(Collectors.toSet());
+        Stream<SootClass> sootInputClasses = AsmSootConverter.toSoot(selectedClasses.stream(), unchangedClasses.stream());
+
+        Map<String, ClassNode> outputClasses = new LinkedHashMap<>();
+        AsmSootConverter.toAsm(applySoot(sootInputClasses)).forEach(c -> outputClasses.put(c.name, c));
+
+        // The converted classes take the places of their inputs, as callers that take the first match (e.g.
+        // findClassWithMainMethod) depend on the order. Classes added by the transformation come last.
+        List<ClassNode> result = new ArrayList<>();
+
+        for (ClassNode c : asmInputList) {
+            if (!selectedNames.contains(c.name))
+                result.add(c);
+            else if (outputClasses.containsKey(c.name))
+                result.add(outputClasses.remove(c.name));
+        }
+
+        result.addAll(outputClasses.values());
+        return result.stream();
     }
 }